@@ -0,0 +1,74 @@
+package com.novae.ocr.cache;
+
+import com.novae.ocr.dto.ExtractedQuote;
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.util.HashUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of LLM extraction results keyed by a hash of the normalized OCR text and extract endpoint version.
+ * Values are deep-copied on the way in and out, so callers may mutate what they get.
+ */
+@Component
+public class ExtractionCache implements StatsProvider {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final boolean enabled;
+    private final String endpointVersion;
+    private final LruTtlCache<String, ExtractedQuote> cache;
+
+    public ExtractionCache(
+            @Value("${ocr.extract.cache.enabled:true}") boolean enabled,
+            @Value("${ocr.extract.cache.max-entries:500}") int maxEntries,
+            @Value("${ocr.extract.cache.ttl-minutes:60}") long ttlMinutes,
+            @Value("${ocr.extract.endpoint-version:v1}") String endpointVersion) {
+        this.enabled = enabled;
+        this.endpointVersion = endpointVersion;
+        this.cache = new LruTtlCache<>(maxEntries, 0, ttlMinutes, TimeUnit.MINUTES, null);
+    }
+
+    /**
+     * Key for OCR text: whitespace runs are collapsed so re-OCR of the same page layout still hits.
+     */
+    public String key(String ocrText) {
+        String normalized = ocrText == null ? "" : WHITESPACE.matcher(ocrText).replaceAll(" ").trim();
+        return HashUtils.sha256Hex(endpointVersion + "\n" + normalized);
+    }
+
+    public Optional<ExtractedQuote> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        ExtractedQuote cached = cache.get(key);
+        return cached != null ? Optional.of(cached.copy()) : Optional.empty();
+    }
+
+    public void put(String key, ExtractedQuote extracted) {
+        if (!enabled || extracted == null) {
+            return;
+        }
+        cache.put(key, extracted.copy());
+    }
+
+    @Override
+    public String statsName() {
+        return "extractionCache";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("endpointVersion", endpointVersion);
+        stats.putAll(cache.stats());
+        return stats;
+    }
+}
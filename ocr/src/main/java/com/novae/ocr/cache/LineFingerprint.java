@@ -0,0 +1,64 @@
+package com.novae.ocr.cache;
+
+import com.novae.ocr.dto.ExtractedLine;
+import com.novae.ocr.util.HashUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical fingerprint of the resolution-relevant fields of an {@link ExtractedLine}.
+ * Case, surrounding/duplicate whitespace and option order do not change the fingerprint.
+ */
+public final class LineFingerprint {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final char SEPARATOR = '\u001F';
+
+    private LineFingerprint() {}
+
+    /**
+     * Fingerprint over vendor, brand, model, size, capacity, description, color and options.
+     */
+    public static String of(ExtractedLine line, String vendorName) {
+        return of(line, vendorName, true);
+    }
+
+    /**
+     * @param includeColor false to treat lines that differ only in color as the same product
+     */
+    public static String of(ExtractedLine line, String vendorName, boolean includeColor) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, vendorName);
+        append(sb, line.getBrand());
+        append(sb, line.getModel());
+        append(sb, line.getSize());
+        append(sb, line.getCapacity());
+        append(sb, line.getDescription());
+        append(sb, includeColor ? line.getColor() : null);
+        List<String> options = new ArrayList<>();
+        if (line.getOptions() != null) {
+            for (String option : line.getOptions()) {
+                String normalized = normalize(option);
+                if (!normalized.isEmpty()) {
+                    options.add(normalized);
+                }
+            }
+        }
+        options.sort(null);
+        for (String option : options) {
+            sb.append(option).append(SEPARATOR);
+        }
+        return HashUtils.sha256Hex(sb.toString());
+    }
+
+    public static String normalize(String value) {
+        return value == null ? "" : WHITESPACE.matcher(value.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        sb.append(normalize(value)).append(SEPARATOR);
+    }
+}
@@ -0,0 +1,189 @@
+package com.novae.ocr.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory LRU cache bounded by entry count, total weight and time-to-live.
+ * Uses a {@link ReentrantLock} rather than {@code synchronized} so virtual threads never pin on it.
+ *
+ * @param <K> key type
+ * @param <V> value type; callers are responsible for copying mutable values
+ */
+public class LruTtlCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongFunction<V> weigher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxEntries maximum number of entries (at least 1)
+     * @param maxWeight  maximum total weight; {@code <= 0} disables the weight bound
+     * @param ttl        time-to-live after write; {@code <= 0} disables expiry
+     * @param ttlUnit    unit of {@code ttl}
+     * @param weigher    weight of a value (e.g. estimated bytes); null weighs every value as 1
+     */
+    public LruTtlCache(int maxEntries, long maxWeight, long ttl, TimeUnit ttlUnit, ToLongFunction<V> weigher) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl > 0 ? ttlUnit.toNanos(ttl) : 0;
+        this.weigher = weigher != null ? weigher : value -> 1L;
+    }
+
+    /**
+     * @return cached value, or null on miss or expiry
+     */
+    public V get(K key) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (isExpired(entry, now)) {
+                entries.remove(key);
+                totalWeight -= entry.weight;
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+        long weight = Math.max(0, weigher.applyAsLong(value));
+        if (maxWeight > 0 && weight > maxWeight) {
+            // Would evict everything else and still not fit.
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, weight, System.nanoTime());
+        lock.lock();
+        try {
+            Entry<V> previous = entries.put(key, entry);
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += weight;
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || (maxWeight > 0 && totalWeight > maxWeight)) && it.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                it.remove();
+                totalWeight -= eldest.getValue().weight;
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            Entry<V> removed = entries.remove(key);
+            if (removed != null) {
+                totalWeight -= removed.weight;
+                invalidations.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every entry whose key matches.
+     *
+     * @return number of removed entries
+     */
+    public int invalidateIf(Predicate<K> keyPredicate) {
+        List<K> removed = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> entry = it.next();
+                if (keyPredicate.test(entry.getKey())) {
+                    it.remove();
+                    totalWeight -= entry.getValue().weight;
+                    removed.add(entry.getKey());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        invalidations.addAndGet(removed.size());
+        return removed.size();
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counters and gauges for {@code /api/ocr/stats}.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("entries", entries.size());
+            stats.put("weight", totalWeight);
+        } finally {
+            lock.unlock();
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxWeight", maxWeight);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.writtenAtNanos > ttlNanos;
+    }
+
+    private record Entry<V>(V value, long weight, long writtenAtNanos) {}
+}
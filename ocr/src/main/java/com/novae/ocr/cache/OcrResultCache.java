@@ -0,0 +1,268 @@
+package com.novae.ocr.cache;
+
+import com.novae.ocr.dto.OcrDocument;
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Content-addressed cache of Azure OCR output keyed by SHA-256 of the PDF plus model id.
+ * In-memory LRU front with a write-through disk tier that survives restarts.
+ */
+@Component
+public class OcrResultCache implements StatsProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrResultCache.class);
+    private static final String FILE_SUFFIX = ".json";
+
+    private final JsonMapper jsonMapper;
+    private final boolean enabled;
+    private final LruTtlCache<String, OcrDocument> memory;
+    private final long ttlMillis;
+    private final Path diskDir;
+    private final long diskMaxBytes;
+
+    /** Guards {@link #diskIndex} and {@link #diskBytes}; file IO happens outside the lock. */
+    private final ReentrantLock diskLock = new ReentrantLock();
+    /** Key to file size, oldest write first. */
+    private final LinkedHashMap<String, Long> diskIndex = new LinkedHashMap<>();
+    private long diskBytes;
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong diskMisses = new AtomicLong();
+    private final AtomicLong diskWrites = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    public OcrResultCache(
+            JsonMapper jsonMapper,
+            @Value("${ocr.ocr-cache.enabled:true}") boolean enabled,
+            @Value("${ocr.ocr-cache.max-entries:200}") int maxEntries,
+            @Value("${ocr.ocr-cache.max-bytes:134217728}") long maxBytes,
+            @Value("${ocr.ocr-cache.ttl-hours:168}") long ttlHours,
+            @Value("${ocr.ocr-cache.dir:}") String diskDir,
+            @Value("${ocr.ocr-cache.disk-max-bytes:1073741824}") long diskMaxBytes) {
+        this.jsonMapper = jsonMapper;
+        this.enabled = enabled;
+        this.memory = new LruTtlCache<>(maxEntries, maxBytes, ttlHours, TimeUnit.HOURS, OcrResultCache::estimateBytes);
+        this.ttlMillis = TimeUnit.HOURS.toMillis(Math.max(0, ttlHours));
+        this.diskMaxBytes = diskMaxBytes;
+        this.diskDir = enabled ? initDiskDir(diskDir) : null;
+    }
+
+    /**
+     * Cache key for a PDF analysed with the given model; hashing streams the file.
+     */
+    public String key(Path pdfFile, String modelId) {
+        return modelId + "_" + HashUtils.sha256Hex(pdfFile);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<OcrDocument> get(String key) {
+        if (!enabled || key == null) {
+            return Optional.empty();
+        }
+        OcrDocument cached = memory.get(key);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        OcrDocument fromDisk = readDisk(key);
+        if (fromDisk == null) {
+            return Optional.empty();
+        }
+        memory.put(key, fromDisk);
+        return Optional.of(copy(fromDisk));
+    }
+
+    public void put(String key, OcrDocument document) {
+        if (!enabled || key == null || document == null) {
+            return;
+        }
+        OcrDocument stored = copy(document);
+        memory.put(key, stored);
+        writeDisk(key, stored);
+    }
+
+    @Override
+    public String statsName() {
+        return "ocrResultCache";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("memory", memory.stats());
+        Map<String, Object> disk = new LinkedHashMap<>();
+        diskLock.lock();
+        try {
+            disk.put("entries", diskIndex.size());
+            disk.put("bytes", diskBytes);
+        } finally {
+            diskLock.unlock();
+        }
+        disk.put("enabled", diskDir != null);
+        disk.put("maxBytes", diskMaxBytes);
+        disk.put("hits", diskHits.get());
+        disk.put("misses", diskMisses.get());
+        disk.put("writes", diskWrites.get());
+        disk.put("evictions", diskEvictions.get());
+        stats.put("disk", disk);
+        return stats;
+    }
+
+    private OcrDocument readDisk(String key) {
+        if (diskDir == null) {
+            return null;
+        }
+        Path file = diskDir.resolve(key + FILE_SUFFIX);
+        try {
+            if (!Files.isRegularFile(file) || isExpired(Files.getLastModifiedTime(file).toMillis())) {
+                diskMisses.incrementAndGet();
+                return null;
+            }
+            OcrDocument document = jsonMapper.readValue(Files.readAllBytes(file), OcrDocument.class);
+            diskHits.incrementAndGet();
+            return document;
+        } catch (IOException | RuntimeException e) {
+            diskMisses.incrementAndGet();
+            log.warn("Unable to read OCR cache file={}", file, e);
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, OcrDocument document) {
+        if (diskDir == null) {
+            return;
+        }
+        Path file = diskDir.resolve(key + FILE_SUFFIX);
+        long size;
+        try {
+            // Write to a temp file and move so concurrent readers never see a partial entry.
+            Path tmp = Files.createTempFile(diskDir, key, ".tmp");
+            Files.write(tmp, jsonMapper.writeValueAsBytes(document));
+            size = Files.size(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            diskWrites.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to write OCR cache file={}", file, e);
+            return;
+        }
+        List<String> evicted = new ArrayList<>();
+        diskLock.lock();
+        try {
+            Long previous = diskIndex.remove(key);
+            if (previous != null) {
+                diskBytes -= previous;
+            }
+            diskIndex.put(key, size);
+            diskBytes += size;
+            Iterator<Map.Entry<String, Long>> it = diskIndex.entrySet().iterator();
+            while (diskMaxBytes > 0 && diskBytes > diskMaxBytes && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                it.remove();
+                diskBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+            }
+        } finally {
+            diskLock.unlock();
+        }
+        for (String evictedKey : evicted) {
+            deleteQuietly(diskDir.resolve(evictedKey + FILE_SUFFIX));
+            diskEvictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Creates the disk tier directory and indexes entries from previous runs (oldest first); expired files are removed.
+     */
+    private Path initDiskDir(String configured) {
+        if (configured == null || configured.isBlank()) {
+            return null;
+        }
+        Path dir = Paths.get(configured.trim());
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            log.warn("OCR cache disk tier disabled; cannot create dir={}", dir, e);
+            return null;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.warn("Unable to index OCR cache dir={}", dir, e);
+        }
+        files.sort(Comparator.comparingLong(OcrResultCache::lastModifiedQuietly));
+        for (Path file : files) {
+            long modified = lastModifiedQuietly(file);
+            if (isExpired(modified)) {
+                deleteQuietly(file);
+                continue;
+            }
+            String name = file.getFileName().toString();
+            long size = file.toFile().length();
+            diskIndex.put(name.substring(0, name.length() - FILE_SUFFIX.length()), size);
+            diskBytes += size;
+        }
+        log.info("OCR cache disk tier dir={} entries={} bytes={}", dir, diskIndex.size(), diskBytes);
+        return dir;
+    }
+
+    private boolean isExpired(long modifiedMillis) {
+        return ttlMillis > 0 && System.currentTimeMillis() - modifiedMillis > ttlMillis;
+    }
+
+    private static long lastModifiedQuietly(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete OCR cache file={}", file, e);
+        }
+    }
+
+    private static OcrDocument copy(OcrDocument source) {
+        return new OcrDocument(source.getContent(), new ArrayList<>(source.getPageTexts()));
+    }
+
+    private static long estimateBytes(OcrDocument document) {
+        long chars = document.getContent().length();
+        for (String page : document.getPageTexts()) {
+            chars += page != null ? page.length() : 0;
+        }
+        return chars * 2;
+    }
+}
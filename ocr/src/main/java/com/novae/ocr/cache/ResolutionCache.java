@@ -0,0 +1,104 @@
+package com.novae.ocr.cache;
+
+import com.novae.ocr.dto.ExtractedLine;
+import com.novae.ocr.dto.ResolvedLine;
+import com.novae.ocr.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of resolved lines keyed by {@link LineFingerprint}, plus vendor name to resolved vendor id. Both are scoped
+ * to the tenant (see {@link com.novae.ocr.context.TenantKeys}): the resolver answers per caller, and the vendor id
+ * becomes the quote's customer id, so one dealer's results are never served to another.
+ * Only lines that resolved to a SKU are cached; values are deep-copied in and out.
+ */
+@Component
+public class ResolutionCache implements StatsProvider {
+
+    private final boolean enabled;
+    private final LruTtlCache<Key, ResolvedLine> lines;
+    private final LruTtlCache<VendorKey, String> vendorIds;
+
+    public ResolutionCache(
+            @Value("${ocr.resolve.cache.enabled:true}") boolean enabled,
+            @Value("${ocr.resolve.cache.max-entries:5000}") int maxEntries,
+            @Value("${ocr.resolve.cache.ttl-minutes:720}") long ttlMinutes) {
+        this.enabled = enabled;
+        this.lines = new LruTtlCache<>(maxEntries, 0, ttlMinutes, TimeUnit.MINUTES, null);
+        this.vendorIds = new LruTtlCache<>(maxEntries, 0, ttlMinutes, TimeUnit.MINUTES, null);
+    }
+
+    public Key key(String tenant, ExtractedLine line, String vendorName) {
+        return new Key(tenant, LineFingerprint.normalize(line.getBrand()), LineFingerprint.of(line, vendorName));
+    }
+
+    public Optional<ResolvedLine> get(Key key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        ResolvedLine cached = lines.get(key);
+        return cached != null ? Optional.of(cached.copy()) : Optional.empty();
+    }
+
+    public void put(Key key, ResolvedLine resolved) {
+        if (!enabled || resolved == null || resolved.getSku() == null || resolved.getSku().isBlank()) {
+            return;
+        }
+        lines.put(key, resolved.copy());
+    }
+
+    public Optional<String> vendorId(String tenant, String vendorName) {
+        if (!enabled || vendorName == null || vendorName.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(vendorIds.get(new VendorKey(tenant, LineFingerprint.normalize(vendorName))));
+    }
+
+    public void putVendorId(String tenant, String vendorName, String vendorId) {
+        if (!enabled || vendorName == null || vendorName.isBlank() || vendorId == null || vendorId.isBlank()) {
+            return;
+        }
+        vendorIds.put(new VendorKey(tenant, LineFingerprint.normalize(vendorName)), vendorId);
+    }
+
+    /**
+     * Drop every cached line of a brand for all tenants (e.g. after a catalog change).
+     *
+     * @return number of removed lines
+     */
+    public int invalidateBrand(String brand) {
+        String normalized = LineFingerprint.normalize(brand);
+        return lines.invalidateIf(key -> key.brand().equals(normalized));
+    }
+
+    public void invalidateAll() {
+        lines.clear();
+        vendorIds.clear();
+    }
+
+    @Override
+    public String statsName() {
+        return "resolutionCache";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("lines", lines.stats());
+        stats.put("vendors", vendorIds.stats());
+        return stats;
+    }
+
+    /**
+     * Cache key; brand is kept separately from the fingerprint for invalidation by brand.
+     */
+    public record Key(String tenant, String brand, String fingerprint) {}
+
+    private record VendorKey(String tenant, String vendorName) {}
+}
@@ -0,0 +1,92 @@
+package com.novae.ocr.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads catalog CSV files: a header row naming the columns {@code sku, model, brand, size, name, options} (any
+ * order, extra columns ignored), options separated by {@code |}. Fields may be double-quoted; rows without a SKU
+ * are skipped.
+ */
+final class CatalogCsvReader {
+
+    private static final String[] COLUMNS = {"sku", "model", "brand", "size", "name", "options"};
+
+    private CatalogCsvReader() {}
+
+    static List<CatalogEntry> read(Path file) throws IOException {
+        List<CatalogEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return entries;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            List<String> names = parseLine(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("sku")) {
+                throw new IOException("Catalog " + file + " has no sku column; expected " + Arrays.toString(COLUMNS));
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                List<String> fields = parseLine(line);
+                String sku = field(fields, columns, "sku");
+                if (sku.isEmpty()) continue;
+                String options = field(fields, columns, "options");
+                entries.add(new CatalogEntry(sku, field(fields, columns, "model"), field(fields, columns, "brand"),
+                        field(fields, columns, "size"), field(fields, columns, "name"),
+                        options.isEmpty() ? List.of() : Arrays.stream(options.split("\\|"))
+                                .map(String::trim).filter(option -> !option.isEmpty()).toList()));
+            }
+        }
+        return entries;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index != null && index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    /**
+     * Splits one CSV line; {@code ""} inside a quoted field is a literal quote.
+     */
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
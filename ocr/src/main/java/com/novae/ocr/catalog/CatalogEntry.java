@@ -0,0 +1,13 @@
+package com.novae.ocr.catalog;
+
+import java.util.List;
+
+/**
+ * One catalog product: SKU with its model, brand, size, display name and the option names it can be ordered with.
+ */
+public record CatalogEntry(String sku, String model, String brand, String size, String name, List<String> options) {
+
+    public CatalogEntry {
+        options = options != null ? List.copyOf(options) : List.of();
+    }
+}
@@ -0,0 +1,202 @@
+package com.novae.ocr.catalog;
+
+import com.novae.ocr.dto.ExtractedLine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable lookup structure over catalog entries.
+ * <p>
+ * A line is matched by exact model key first (scored up or down by size and brand agreement), then by catalog
+ * models starting with the line's model, then by character trigram similarity of model, size and description.
+ * Every extracted option the entry does not offer lowers the score. Keys ignore case and punctuation, so
+ * {@code "6 x 12"} and {@code "6X12"} are the same size.
+ */
+final class CatalogIndex {
+
+    static final CatalogIndex EMPTY = new CatalogIndex(List.of());
+
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.3;
+    private static final double AMBIGUITY_MARGIN = 0.05;
+    private static final double AMBIGUITY_PENALTY = 0.15;
+    private static final double OPTION_PENALTY = 0.1;
+
+    private final List<CatalogEntry> entries;
+    private final TreeMap<String, List<Integer>> byModel = new TreeMap<>();
+    private final Map<String, List<Integer>> byTrigram = new HashMap<>();
+    private final int[] trigramCounts;
+
+    CatalogIndex(List<CatalogEntry> entries) {
+        this.entries = List.copyOf(entries);
+        this.trigramCounts = new int[this.entries.size()];
+        for (int id = 0; id < this.entries.size(); id++) {
+            CatalogEntry entry = this.entries.get(id);
+            String model = key(entry.model());
+            if (!model.isEmpty()) {
+                byModel.computeIfAbsent(model, k -> new ArrayList<>()).add(id);
+            }
+            Set<String> grams = trigrams(entry.model(), entry.size(), entry.name());
+            trigramCounts[id] = grams.size();
+            for (String gram : grams) {
+                byTrigram.computeIfAbsent(gram, k -> new ArrayList<>()).add(id);
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Best matches for {@code line}, highest confidence first. When the top two are nearly tied the first is
+     * marked down, so an ambiguous line is left to the resolver.
+     */
+    List<CatalogMatch> lookup(ExtractedLine line, int limit) {
+        Map<Integer, Double> scores = new HashMap<>();
+        String model = key(line.getModel());
+        String size = key(line.getSize());
+        String brand = key(line.getBrand());
+        if (!model.isEmpty()) {
+            for (int id : byModel.getOrDefault(model, List.of())) {
+                scores.put(id, 0.9 + agreement(entries.get(id), size, brand));
+            }
+            if (scores.isEmpty() && model.length() >= MIN_PREFIX_LENGTH) {
+                for (List<Integer> ids : byModel.subMap(model, model + Character.MAX_VALUE).values()) {
+                    for (int id : ids) {
+                        scores.put(id, 0.75 + agreement(entries.get(id), size, brand));
+                    }
+                }
+            }
+        }
+        if (scores.isEmpty()) {
+            scoreByTrigrams(line, scores);
+        }
+        List<CatalogMatch> matches = new ArrayList<>(scores.size());
+        for (Map.Entry<Integer, Double> scored : scores.entrySet()) {
+            CatalogEntry entry = entries.get(scored.getKey());
+            double confidence = scored.getValue() - OPTION_PENALTY * unmatchedOptions(line, entry);
+            matches.add(new CatalogMatch(entry, clamp(confidence)));
+        }
+        matches.sort(Comparator.comparingDouble(CatalogMatch::confidence).reversed()
+                .thenComparing(match -> match.entry().sku()));
+        if (matches.size() > 1 && matches.get(0).confidence() - matches.get(1).confidence() < AMBIGUITY_MARGIN) {
+            CatalogMatch best = matches.get(0);
+            matches.set(0, new CatalogMatch(best.entry(), clamp(best.confidence() - AMBIGUITY_PENALTY)));
+        }
+        return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Size match +0.06 and brand match +0.03; a conflicting size (-0.3) or brand (-0.2) counts against the entry.
+     * Values missing on either side are neutral.
+     */
+    private static double agreement(CatalogEntry entry, String size, String brand) {
+        double score = 0.0;
+        String entrySize = key(entry.size());
+        if (!size.isEmpty() && !entrySize.isEmpty()) {
+            score += size.equals(entrySize) ? 0.06 : -0.3;
+        }
+        String entryBrand = key(entry.brand());
+        if (!brand.isEmpty() && !entryBrand.isEmpty()) {
+            score += brand.equals(entryBrand) ? 0.03 : -0.2;
+        }
+        return score;
+    }
+
+    private void scoreByTrigrams(ExtractedLine line, Map<Integer, Double> scores) {
+        Set<String> grams = trigrams(line.getModel(), line.getSize(), line.getDescription());
+        if (grams.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> overlaps = new HashMap<>();
+        for (String gram : grams) {
+            for (int id : byTrigram.getOrDefault(gram, List.of())) {
+                overlaps.merge(id, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<Integer, Integer> overlap : overlaps.entrySet()) {
+            int shared = overlap.getValue();
+            double similarity = (double) shared / (grams.size() + trigramCounts[overlap.getKey()] - shared);
+            if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                scores.put(overlap.getKey(), 0.85 * similarity);
+            }
+        }
+    }
+
+    private static int unmatchedOptions(ExtractedLine line, CatalogEntry entry) {
+        if (line.getOptions() == null || line.getOptions().isEmpty()) {
+            return 0;
+        }
+        Set<String> offered = new HashSet<>();
+        for (String option : entry.options()) {
+            offered.add(key(option));
+        }
+        int unmatched = 0;
+        for (String option : line.getOptions()) {
+            String wanted = key(option);
+            if (!wanted.isEmpty() && !offered.contains(wanted)) {
+                unmatched++;
+            }
+        }
+        return unmatched;
+    }
+
+    /**
+     * Catalog spelling of an extracted option, or the extracted text when the entry does not list it.
+     */
+    static String canonicalOption(CatalogEntry entry, String option) {
+        String wanted = key(option);
+        for (String offered : entry.options()) {
+            if (key(offered).equals(wanted)) {
+                return offered;
+            }
+        }
+        return option != null ? option.trim() : null;
+    }
+
+    static String key(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Set<String> trigrams(String... parts) {
+        StringBuilder text = new StringBuilder(" ");
+        for (String part : parts) {
+            if (part == null || part.isBlank()) continue;
+            for (String token : part.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!token.isEmpty()) {
+                    text.append(token).append(' ');
+                }
+            }
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static double clamp(double confidence) {
+        return Math.max(0.0, Math.min(1.0, confidence));
+    }
+
+    record CatalogMatch(CatalogEntry entry, double confidence) {}
+}
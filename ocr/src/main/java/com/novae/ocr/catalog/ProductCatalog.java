@@ -0,0 +1,167 @@
+package com.novae.ocr.catalog;
+
+import com.novae.ocr.dto.ExtractedLine;
+import com.novae.ocr.dto.ProductSuggestion;
+import com.novae.ocr.dto.ResolvedLine;
+import com.novae.ocr.metrics.StatsProvider;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process product catalog used to resolve lines deterministically before calling MCP.
+ * <p>
+ * The index is built from the CSV at {@code ocr.catalog.file} (see {@link CatalogCsvReader}) and rebuilt in the
+ * background when the file's modification time changes; lookups always see a complete index. Lines matching with
+ * at least {@code ocr.catalog.min-confidence} are resolved here, everything else goes to the resolver.
+ */
+@Component
+public class ProductCatalog implements StatsProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalog.class);
+
+    private final Path file;
+    private final double minConfidence;
+    private final int maxSuggestions;
+    private final ScheduledExecutorService refresher;
+    private volatile CatalogIndex index = CatalogIndex.EMPTY;
+    private volatile long loadedModifiedMillis = -1L;
+    private volatile Instant loadedAt;
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong preResolved = new AtomicLong();
+
+    public ProductCatalog(
+            @Value("${ocr.catalog.file:}") String file,
+            @Value("${ocr.catalog.min-confidence:0.9}") double minConfidence,
+            @Value("${ocr.catalog.max-suggestions:3}") int maxSuggestions,
+            @Value("${ocr.catalog.refresh-seconds:300}") long refreshSeconds) {
+        this.file = file == null || file.isBlank() ? null : Path.of(file.trim());
+        this.minConfidence = minConfidence;
+        this.maxSuggestions = Math.max(1, maxSuggestions);
+        if (this.file == null) {
+            this.refresher = null;
+            return;
+        }
+        refresh();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalog-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, refreshSeconds);
+        this.refresher.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdownRefresher() {
+        if (refresher != null) {
+            refresher.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Resolves {@code line} from the catalog when the best match is confident enough; the runners-up become
+     * suggestions.
+     */
+    public Optional<ResolvedLine> preResolve(ExtractedLine line) {
+        CatalogIndex current = index;
+        if (line == null || current.size() == 0) {
+            return Optional.empty();
+        }
+        lookups.incrementAndGet();
+        List<CatalogIndex.CatalogMatch> matches = current.lookup(line, maxSuggestions);
+        if (matches.isEmpty() || matches.get(0).confidence() < minConfidence) {
+            return Optional.empty();
+        }
+        preResolved.incrementAndGet();
+        CatalogEntry best = matches.get(0).entry();
+        ResolvedLine resolved = new ResolvedLine();
+        resolved.setSku(best.sku());
+        resolved.setCanonicalName(!best.name().isEmpty() ? best.name() : best.model());
+        resolved.setNormalizedColor(line.getColor() != null ? line.getColor().trim() : null);
+        List<String> options = new ArrayList<>();
+        if (line.getOptions() != null) {
+            for (String option : line.getOptions()) {
+                if (option != null && !option.isBlank()) {
+                    options.add(CatalogIndex.canonicalOption(best, option));
+                }
+            }
+        }
+        resolved.setNormalizedOptions(options);
+        resolved.setConfidence(matches.get(0).confidence());
+        List<ProductSuggestion> suggestions = new ArrayList<>(matches.size());
+        for (CatalogIndex.CatalogMatch match : matches) {
+            ProductSuggestion suggestion = new ProductSuggestion(match.entry().sku(), match.entry().name(),
+                    match.confidence());
+            suggestion.setModelId(match.entry().model());
+            suggestions.add(suggestion);
+        }
+        resolved.setSuggestions(suggestions);
+        return Optional.of(resolved);
+    }
+
+    /**
+     * Rebuilds the index if the file changed since the last load. A failed load keeps the previous index.
+     */
+    private void refresh() {
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified == loadedModifiedMillis) {
+                return;
+            }
+            long startNs = System.nanoTime();
+            CatalogIndex rebuilt = new CatalogIndex(CatalogCsvReader.read(file));
+            index = rebuilt;
+            loadedModifiedMillis = modified;
+            loadedAt = Instant.now();
+            reloads.incrementAndGet();
+            log.info("Catalog loaded from {}: {} entries in {} ms", file, rebuilt.size(),
+                    (System.nanoTime() - startNs) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            loadFailures.incrementAndGet();
+            log.warn("Unable to load catalog from {}; keeping {} entries", file, index.size(), e);
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "catalog";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long lookupCount = lookups.get();
+        stats.put("enabled", isEnabled());
+        stats.put("entries", index.size());
+        stats.put("loadedAt", loadedAt != null ? loadedAt.toString() : null);
+        stats.put("reloads", reloads.get());
+        stats.put("loadFailures", loadFailures.get());
+        stats.put("lookups", lookupCount);
+        stats.put("preResolved", preResolved.get());
+        stats.put("preResolvedRatio", lookupCount > 0 ? (double) preResolved.get() / lookupCount : 0.0);
+        return stats;
+    }
+}
@@ -1,12 +1,16 @@
 package com.novae.ocr.config;
 
-import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisClient;
+import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisAsyncClient;
 import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.policy.FixedDelayOptions;
+import com.azure.core.http.policy.RetryOptions;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * Configures Azure Document Intelligence (Form Recognizer) client.
  */
@@ -19,14 +23,19 @@ public class AzureDocumentIntelligenceConfig {
     @Value("${azure.document-intelligence.key:}")
     private String key;
 
+    /**
+     * Non-blocking client used for analysis so long-running polls do not hold worker threads. SDK retries are off:
+     * analyze calls are retried by the {@code ocr.retry.azure.*} policy, which shares the retry budget.
+     */
     @Bean
-    public DocumentAnalysisClient documentAnalysisClient() {
+    public DocumentAnalysisAsyncClient documentAnalysisAsyncClient() {
         if (endpoint == null || endpoint.isBlank() || key == null || key.isBlank()) {
             return null;
         }
         return new DocumentAnalysisClientBuilder()
                 .endpoint(endpoint)
                 .credential(new AzureKeyCredential(key))
-                .buildClient();
+                .retryOptions(new RetryOptions(new FixedDelayOptions(0, Duration.ofSeconds(1))))
+                .buildAsyncClient();
     }
 }
@@ -0,0 +1,45 @@
+package com.novae.ocr.config;
+
+import com.novae.ocr.resilience.CircuitBreaker;
+import com.novae.ocr.resilience.CircuitBreakers;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Guards every request of a {@link org.springframework.web.client.RestClient} with a circuit breaker: rejects
+ * requests while it is open, and counts 5xx responses, connect failures and timeouts as failures.
+ */
+class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private final CircuitBreaker breaker;
+
+    CircuitBreakerInterceptor(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        try (CircuitBreaker.Call call = breaker.acquire()) {
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                if (CircuitBreakers.isOutage(e)) {
+                    call.onFailure();
+                }
+                throw e;
+            }
+            if (response.getStatusCode().is5xxServerError()) {
+                call.onFailure();
+            } else {
+                call.onSuccess();
+            }
+            return response;
+        }
+    }
+}
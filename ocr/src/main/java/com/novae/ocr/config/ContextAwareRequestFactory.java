@@ -0,0 +1,51 @@
+package com.novae.ocr.config;
+
+import com.novae.ocr.context.CallCancellation;
+import com.novae.ocr.context.ProcessingContext;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the response timeout of each request at the remaining deadline of the calling thread's
+ * {@link ProcessingContext}, so a slow downstream call cannot outlive its job. Requests are also registered with the
+ * thread's {@link CallCancellation} scope so a losing hedge attempt can be aborted.
+ */
+class ContextAwareRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    ContextAwareRequestFactory(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    @Override
+    protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        if (request instanceof Cancellable cancellable) {
+            CallCancellation.register(cancellable);
+        }
+        return request;
+    }
+
+    @Override
+    protected RequestConfig createRequestConfig(Object client) {
+        RequestConfig config = super.createRequestConfig(client);
+        Optional<ProcessingContext> context = ProcessingContext.current();
+        if (context.isEmpty() || !context.get().hasDeadline()) {
+            return config;
+        }
+        long remainingMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(context.get().remainingNanos()));
+        Timeout current = config.getResponseTimeout();
+        if (current != null && !current.isDisabled() && current.toMilliseconds() <= remainingMs) {
+            return config;
+        }
+        return RequestConfig.copy(config).setResponseTimeout(Timeout.ofMilliseconds(remainingMs)).build();
+    }
+}
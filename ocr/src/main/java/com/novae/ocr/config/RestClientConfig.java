@@ -1,15 +1,27 @@
 package com.novae.ocr.config;
 
+import com.novae.ocr.metrics.HttpConnectionPoolStats;
+import com.novae.ocr.resilience.CircuitBreakers;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
 import java.time.Duration;
 
 /**
- * RestClient for MCP Client and (optional) dealer portal.
+ * RestClient for MCP Client and (optional) dealer portal, sharing one pooled keep-alive HTTP client.
  */
 @Configuration
 public class RestClientConfig {
@@ -26,22 +38,87 @@ public class RestClientConfig {
     @Value("${ocr.dealer-portal.base-url:}")
     private String dealerPortalBaseUrl;
 
+    @Value("${ocr.dealer-portal.read-timeout:30}")
+    private int dealerPortalReadTimeoutSeconds;
+
+    @Value("${ocr.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${ocr.http.max-connections-per-route:16}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${ocr.http.keep-alive-seconds:60}")
+    private int keepAliveSeconds;
+
+    @Value("${ocr.http.idle-evict-seconds:30}")
+    private int idleEvictSeconds;
+
+    @Value("${ocr.http.connection-request-timeout-seconds:30}")
+    private int connectionRequestTimeoutSeconds;
+
+    @Bean
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(Math.max(1, maxConnections))
+                .setMaxConnPerRoute(Math.max(1, maxConnectionsPerRoute))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(mcpClientConnectTimeoutSeconds))
+                        // Re-check connections idle this long before reuse; servers may have closed them.
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Shared client; gzip/deflate response decompression is on by default. The client's own retries (429/503 and
+     * idempotent I/O errors) are off so {@code ocr.retry.*} is the only retry layer.
+     */
     @Bean
-    public RestClient mcpClientRestClient() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(Duration.ofSeconds(mcpClientConnectTimeoutSeconds));
-        factory.setReadTimeout(Duration.ofSeconds(mcpClientReadTimeoutSeconds));
+    public CloseableHttpClient pooledHttpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        TimeValue defaultKeepAlive = TimeValue.ofSeconds(keepAliveSeconds);
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+                    @Override
+                    public TimeValue getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        TimeValue advertised = super.getKeepAliveDuration(response, context);
+                        return advertised != null && advertised.getDuration() > 0
+                                ? advertised.min(defaultKeepAlive) : defaultKeepAlive;
+                    }
+                })
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictSeconds))
+                .build();
+    }
+
+    @Bean
+    public HttpConnectionPoolStats httpConnectionPoolStats(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return new HttpConnectionPoolStats(httpConnectionManager);
+    }
+
+    @Bean
+    public RestClient mcpClientRestClient(CloseableHttpClient pooledHttpClient) {
         return RestClient.builder()
                 .baseUrl(mcpClientBaseUrl)
-                .requestFactory(factory)
+                .requestFactory(requestFactory(pooledHttpClient, mcpClientReadTimeoutSeconds))
                 .build();
     }
 
     @Bean(name = "dealerPortalRestClient")
-    public RestClient dealerPortalRestClient() {
+    public RestClient dealerPortalRestClient(CloseableHttpClient pooledHttpClient, CircuitBreakers circuitBreakers) {
         String base = dealerPortalBaseUrl != null ? dealerPortalBaseUrl.trim() : "";
         return RestClient.builder()
                 .baseUrl(base.isEmpty() ? "http://localhost" : base)
+                .requestFactory(requestFactory(pooledHttpClient, dealerPortalReadTimeoutSeconds))
+                .requestInterceptor(new CircuitBreakerInterceptor(circuitBreakers.dealerPortal()))
                 .build();
     }
+
+    private HttpComponentsClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient, int readTimeoutSeconds) {
+        HttpComponentsClientHttpRequestFactory factory = new ContextAwareRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofSeconds(readTimeoutSeconds));
+        factory.setConnectionRequestTimeout(Duration.ofSeconds(connectionRequestTimeoutSeconds));
+        return factory;
+    }
 }
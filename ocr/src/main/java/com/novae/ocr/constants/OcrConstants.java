@@ -27,6 +27,7 @@ public final class OcrConstants {
     public static final String ROW_FLAG_UNRESOLVED_PRODUCT = "UNRESOLVED_PRODUCT";
     public static final String ROW_FLAG_MISSING_QTY = "MISSING_QTY";
     public static final String ROW_FLAG_MISSING_PRICE = "MISSING_PRICE";
+    public static final String ROW_FLAG_DEADLINE_EXCEEDED = "DEADLINE_EXCEEDED";
 
     // Missing field path prefixes
     public static final String MISSING_FIELD_CUSTOMER_ID = "customer.customerId";
@@ -36,12 +37,14 @@ public final class OcrConstants {
     // Error messages
     public static final String ERROR_OCR_FAILED = "Azure OCR processing failed";
     public static final String ERROR_OCR_DNS_FAILED = "Azure OCR endpoint DNS resolution failed";
+    public static final String ERROR_UPLOAD_SPOOL_FAILED = "Unable to spool uploaded file";
     public static final String ERROR_EXTRACTION_FAILED = "LLM extraction failed";
     public static final String ERROR_RESOLUTION_FAILED = "Resolution agent failed";
     public static final String ERROR_VALIDATION_FAILED = "Validation failed";
     public static final String ERROR_LOW_CONFIDENCE = "Overall confidence below threshold";
     public static final String ERROR_MISSING_FIELDS = "Missing critical fields";
     public static final String ERROR_UNRESOLVED_LINES = "Too many unresolved lines";
+    public static final String ERROR_DEADLINE_EXCEEDED = "Processing deadline exceeded";
     public static final String ERROR_STRUCTURED_MISSING_UNIT_PRICE = "Structured document missing unitPrice";
 
     // API endpoints (MCP Client)
@@ -54,4 +57,5 @@ public final class OcrConstants {
     public static final String CONFIG_MIN_RESOLUTION_RATE = "ocr.validation.min-resolution-rate";
     public static final String CONFIG_DEALER_PORTAL_BASE_URL = "ocr.dealer-portal.base-url";
     public static final String CONFIG_MAX_PAGES_PER_BATCH = "ocr.process.max-pages-per-batch";
+    public static final String CONFIG_JOB_DEADLINE_SECONDS = "ocr.job.deadline-seconds";
 }
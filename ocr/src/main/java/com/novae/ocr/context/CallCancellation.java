@@ -0,0 +1,74 @@
+package com.novae.ocr.context;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Lets one thread abort the outbound HTTP requests another thread makes inside {@link #callWithin(Supplier)}.
+ * Requests registered after {@link #cancel()} are aborted immediately.
+ */
+public final class CallCancellation {
+
+    private static final ThreadLocal<CallCancellation> CURRENT = new ThreadLocal<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Cancellable> requests = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Registers a request with the calling thread's scope, if any.
+     */
+    public static void register(Cancellable request) {
+        CallCancellation scope = CURRENT.get();
+        if (scope != null) {
+            scope.add(request);
+        }
+    }
+
+    public <T> T callWithin(Supplier<T> call) {
+        CallCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public void cancel() {
+        List<Cancellable> toCancel;
+        lock.lock();
+        try {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toCancel = new ArrayList<>(requests);
+            requests.clear();
+        } finally {
+            lock.unlock();
+        }
+        toCancel.forEach(Cancellable::cancel);
+    }
+
+    private void add(Cancellable request) {
+        lock.lock();
+        try {
+            if (!cancelled) {
+                requests.add(request);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        request.cancel();
+    }
+}
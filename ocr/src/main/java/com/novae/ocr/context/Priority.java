@@ -0,0 +1,37 @@
+package com.novae.ocr.context;
+
+import java.util.Locale;
+
+/**
+ * Scheduling class of a job, highest first: a caller waiting on the HTTP response, a regular async upload, and bulk
+ * async uploads. Queues (pipeline stages including the async stage, the Azure analysis queue, MCP limiters) serve
+ * higher classes first, whether or not {@code ocr.stages.enabled}; waiting work ages towards the top by one class per
+ * {@code ocr.priority.aging-ms}, so bulk still moves under sustained interactive load.
+ */
+public enum Priority {
+
+    INTERACTIVE,
+    ASYNC,
+    BULK;
+
+    /**
+     * Rank used to order waiting work; lower is served first. Each {@code agingNanos} waited lowers it by one.
+     */
+    public double rank(long waitedNanos, long agingNanos) {
+        return agingNanos > 0 ? ordinal() - (double) waitedNanos / agingNanos : ordinal();
+    }
+
+    /**
+     * Parses a case-insensitive priority name, falling back to {@code fallback} when blank or unknown.
+     */
+    public static Priority parse(String value, Priority fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.novae.ocr.context;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Per-job state carried through OCR, extract and resolve: caller authorization, the tenant derived from it (see
+ * {@link TenantKeys}), the job's {@link Priority} and the end-to-end deadline.
+ * <p>
+ * Outbound HTTP calls made inside {@link #callWithin(Supplier)} see the context via {@link #current()}, so their
+ * response timeout can be capped at the remaining budget.
+ */
+public final class ProcessingContext {
+
+    private static final ThreadLocal<ProcessingContext> CURRENT = new ThreadLocal<>();
+
+    private final String authorization;
+    private final String tenant;
+    private final Priority priority;
+    /** {@link System#nanoTime()} deadline, or {@link Long#MAX_VALUE} when unbounded. */
+    private final long deadlineNanos;
+    private final AtomicBoolean deadlineExceeded = new AtomicBoolean();
+
+    private ProcessingContext(String authorization, String tenant, Priority priority, long deadlineNanos) {
+        this.authorization = authorization;
+        this.tenant = tenant;
+        this.priority = priority;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Context for an interactive job.
+     *
+     * @param tenant key from {@link TenantKeys#tenantOf(String)}
+     * @param budget time allowed from now; null, zero or negative means no deadline
+     */
+    public static ProcessingContext create(String authorization, String tenant, Duration budget) {
+        return create(authorization, tenant, budget, Priority.INTERACTIVE);
+    }
+
+    /**
+     * @param tenant key from {@link TenantKeys#tenantOf(String)}
+     * @param budget time allowed from now; null, zero or negative means no deadline
+     */
+    public static ProcessingContext create(String authorization, String tenant, Duration budget,
+                                           Priority priority) {
+        Priority effective = priority != null ? priority : Priority.INTERACTIVE;
+        if (budget == null || budget.isZero() || budget.isNegative()) {
+            return new ProcessingContext(authorization, tenant, effective, Long.MAX_VALUE);
+        }
+        return new ProcessingContext(authorization, tenant, effective, System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Context for a call made on behalf of several jobs with the same authorization; it lasts as long as the
+     * latest of their deadlines and runs at the highest of their priorities.
+     */
+    public static ProcessingContext sharedBy(Collection<ProcessingContext> contexts) {
+        ProcessingContext first = contexts.iterator().next();
+        long latest = Long.MIN_VALUE;
+        Priority highest = Priority.BULK;
+        for (ProcessingContext context : contexts) {
+            latest = Math.max(latest, context.deadlineNanos);
+            if (context.priority.compareTo(highest) < 0) {
+                highest = context.priority;
+            }
+        }
+        return new ProcessingContext(first.authorization, first.tenant, highest, latest);
+    }
+
+    public static Optional<ProcessingContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    public String authorization() {
+        return authorization;
+    }
+
+    public String tenant() {
+        return tenant;
+    }
+
+    public Priority priority() {
+        return priority;
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Time left before the deadline; zero once expired, very long when unbounded.
+     */
+    public Duration remaining() {
+        if (!hasDeadline()) {
+            return Duration.ofNanos(Long.MAX_VALUE);
+        }
+        return Duration.ofNanos(Math.max(0L, deadlineNanos - System.nanoTime()));
+    }
+
+    public long remainingNanos() {
+        return hasDeadline() ? Math.max(0L, deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    public boolean expired() {
+        return hasDeadline() && System.nanoTime() - deadlineNanos >= 0L;
+    }
+
+    /**
+     * Records that part of the job was cut short by the deadline; the result must be returned as a draft.
+     */
+    public void markDeadlineExceeded() {
+        deadlineExceeded.set(true);
+    }
+
+    public boolean deadlineExceeded() {
+        return deadlineExceeded.get();
+    }
+
+    /**
+     * Runs {@code call} with this context bound to the current thread.
+     */
+    public <T> T callWithin(Supplier<T> call) {
+        ProcessingContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.novae.ocr.context;
+
+import com.novae.ocr.util.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Derives the tenant a job is scheduled under from its {@code Authorization} header.
+ * <p>
+ * When {@code ocr.tenant.jwt.public-keys} is set and the header carries an RS256 JWT whose signature verifies
+ * against one of those keys (and which is unexpired and, if {@code ocr.tenant.jwt.issuer} is set, from that
+ * issuer), the tenant is {@code p:} plus the first 16 hex digits of the SHA-256 of its issuer and
+ * {@code ocr.tenant.jwt.principal-claim}. That key survives token renewal, so per-tenant caps, weights and cached
+ * resolutions follow the caller rather than the token.
+ * <p>
+ * Any other credential gets {@code h:} plus the hash of the whole credential; its claims are not trusted, since
+ * the key also scopes cached resolutions and a forged claim must not reach another caller's entries. The raw
+ * credential or principal never shows up in stats.
+ */
+@Component
+public class TenantKeys {
+
+    public static final String ANONYMOUS = "anonymous";
+
+    private static final Logger log = LoggerFactory.getLogger(TenantKeys.class);
+    private static final int HASH_PREFIX_LENGTH = 16;
+    private static final String BEARER = "bearer ";
+    /** Tolerated clock difference to the issuer when checking {@code exp} and {@code nbf}. */
+    private static final long CLOCK_SKEW_SECONDS = 60;
+    private static final char SEPARATOR = '\u001F';
+
+    private final JsonMapper jsonMapper;
+    private final List<PublicKey> publicKeys;
+    private final String issuer;
+    private final String principalClaim;
+
+    /**
+     * @param publicKeys comma-separated base64 X.509 (PEM body) RSA public keys of the token issuer; several keys
+     *                   allow rotation
+     * @throws IllegalArgumentException if a key cannot be read
+     */
+    public TenantKeys(
+            JsonMapper jsonMapper,
+            @Value("${ocr.tenant.jwt.public-keys:}") String publicKeys,
+            @Value("${ocr.tenant.jwt.issuer:}") String issuer,
+            @Value("${ocr.tenant.jwt.principal-claim:sub}") String principalClaim) {
+        this.jsonMapper = jsonMapper;
+        this.publicKeys = parseKeys(publicKeys);
+        this.issuer = issuer == null ? "" : issuer.trim();
+        this.principalClaim = principalClaim == null || principalClaim.isBlank() ? "sub" : principalClaim.trim();
+    }
+
+    private static List<PublicKey> parseKeys(String value) {
+        List<PublicKey> keys = new ArrayList<>();
+        if (value == null || value.isBlank()) {
+            return keys;
+        }
+        for (String entry : value.split(",")) {
+            String base64 = entry.replaceAll("-----[A-Z ]+-----|\\s", "");
+            if (base64.isEmpty()) {
+                continue;
+            }
+            try {
+                keys.add(KeyFactory.getInstance("RSA")
+                        .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64))));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid RSA public key in ocr.tenant.jwt.public-keys", e);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * The verified principal's key when the credential is a JWT this service can verify, else the credential hash.
+     */
+    public String tenantOf(String authorization) {
+        if (authorization == null || authorization.isBlank()) {
+            return ANONYMOUS;
+        }
+        if (!publicKeys.isEmpty()) {
+            String principal = verifiedPrincipal(authorization.trim());
+            if (principal != null) {
+                return "p:" + hashPrefix(principal);
+            }
+        }
+        return fromCredential(authorization);
+    }
+
+    /**
+     * Tenant key of an unverified credential: a hash of the whole header, which changes when the token is renewed.
+     */
+    public static String fromCredential(String authorization) {
+        if (authorization == null || authorization.isBlank()) {
+            return ANONYMOUS;
+        }
+        return "h:" + hashPrefix(authorization.trim());
+    }
+
+    private static String hashPrefix(String value) {
+        return HashUtils.sha256Hex(value).substring(0, HASH_PREFIX_LENGTH);
+    }
+
+    /**
+     * Issuer and principal claim of a valid token, or null when the token is missing, malformed, unsigned, signed
+     * with another algorithm or key, expired, not yet valid, from another issuer or without the claim.
+     */
+    private String verifiedPrincipal(String authorization) {
+        if (!authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            JsonNode header = jsonMapper.readTree(decoder.decode(token.substring(0, firstDot)));
+            // Only RS256: accepting the algorithm the token names would let "none" or HS256 tokens through.
+            if (!"RS256".equals(header.path("alg").asString(""))
+                    || !verifies(token.substring(0, secondDot), decoder.decode(token.substring(secondDot + 1)))) {
+                return null;
+            }
+            JsonNode claims = jsonMapper.readTree(decoder.decode(token.substring(firstDot + 1, secondDot)));
+            long now = System.currentTimeMillis() / 1000;
+            JsonNode exp = claims.path("exp");
+            JsonNode nbf = claims.path("nbf");
+            if (!exp.isNumber() || exp.asLong() + CLOCK_SKEW_SECONDS <= now
+                    || nbf.isNumber() && nbf.asLong() - CLOCK_SKEW_SECONDS > now) {
+                return null;
+            }
+            String tokenIssuer = claims.path("iss").asString("");
+            String principal = claims.path(principalClaim).asString("");
+            if ((!issuer.isEmpty() && !issuer.equals(tokenIssuer)) || principal.isBlank()) {
+                return null;
+            }
+            return tokenIssuer + SEPARATOR + principal;
+        } catch (IllegalArgumentException | JacksonException e) {
+            log.debug("Unreadable JWT; tenant falls back to the credential hash");
+            return null;
+        }
+    }
+
+    private boolean verifies(String signedPart, byte[] signature) {
+        byte[] signed = signedPart.getBytes(StandardCharsets.US_ASCII);
+        for (PublicKey key : publicKeys) {
+            try {
+                Signature verifier = Signature.getInstance("SHA256withRSA");
+                verifier.initVerify(key);
+                verifier.update(signed);
+                if (verifier.verify(signature)) {
+                    return true;
+                }
+            } catch (GeneralSecurityException e) {
+                // Wrong key type or malformed signature: try the next key.
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,35 @@
+package com.novae.ocr.controller;
+
+import com.novae.ocr.cache.ResolutionCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Cache maintenance (e.g. invalidate resolved lines after a catalog update).
+ */
+@RestController
+@RequestMapping("/api/ocr/cache")
+public class CacheAdminController {
+
+    private final ResolutionCache resolutionCache;
+
+    public CacheAdminController(ResolutionCache resolutionCache) {
+        this.resolutionCache = resolutionCache;
+    }
+
+    @DeleteMapping("/resolve")
+    public ResponseEntity<Map<String, Object>> invalidateResolve(
+            @RequestParam(value = "brand", required = false) String brand) {
+        if (brand == null || brand.isBlank()) {
+            resolutionCache.invalidateAll();
+            return ResponseEntity.ok(Map.of("invalidated", "ALL"));
+        }
+        int removed = resolutionCache.invalidateBrand(brand);
+        return ResponseEntity.ok(Map.of("brand", brand, "invalidated", removed));
+    }
+}
@@ -0,0 +1,55 @@
+package com.novae.ocr.controller;
+
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.resilience.AdmissionControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes runtime stats (job store, caches, limiters) for dashboards and load balancers.
+ */
+@RestController
+@RequestMapping("/api/ocr")
+public class OcrStatsController {
+
+    private final List<StatsProvider> statsProviders;
+    private final AdmissionControl admissionControl;
+
+    public OcrStatsController(List<StatsProvider> statsProviders, AdmissionControl admissionControl) {
+        this.statsProviders = statsProviders;
+        this.admissionControl = admissionControl;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> response = new TreeMap<>();
+        for (StatsProvider provider : statsProviders) {
+            response.put(provider.statsName(), provider.stats());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Load balancer probe: 200 while new uploads would be admitted, otherwise 503 with {@code Retry-After}.
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmission() {
+        Map<String, Object> stats = admissionControl.stats();
+        if (admissionControl.accepting()) {
+            return ResponseEntity.ok(stats);
+        }
+        long retryAfterSeconds = Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(admissionControl.retryAfterMs() + 999L));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(stats);
+    }
+}
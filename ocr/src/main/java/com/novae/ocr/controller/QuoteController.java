@@ -1,12 +1,21 @@
 package com.novae.ocr.controller;
 
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.context.TenantKeys;
+import com.novae.ocr.dto.AsyncJob;
+import com.novae.ocr.dto.AsyncJobStatus;
 import com.novae.ocr.dto.OcrQuoteDTO;
+import com.novae.ocr.exception.AdmissionRejectedException;
+import com.novae.ocr.exception.StageOverloadedException;
+import com.novae.ocr.resilience.AdmissionControl;
+import com.novae.ocr.service.AsyncJobStore;
 import com.novae.ocr.service.QuoteWorkflowService;
-import jakarta.annotation.PreDestroy;
-import org.springframework.beans.factory.annotation.Value;
+import com.novae.ocr.service.UploadSpoolService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,12 +25,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST API for PDF-to-Quote pipeline.
@@ -30,44 +39,40 @@ import java.util.concurrent.Executors;
 @RequestMapping("/api/ocr")
 public class QuoteController {
 
-    private enum JobStatus {
-        PROCESSING,
-        COMPLETED,
-        FAILED
-    }
-
-    private static final class AsyncJobState {
-        private final String jobId;
-        private volatile JobStatus status;
-        private volatile OcrQuoteDTO result;
-        private volatile String error;
-
-        private AsyncJobState(String jobId) {
-            this.jobId = jobId;
-            this.status = JobStatus.PROCESSING;
-        }
-    }
-
-    private final Map<String, AsyncJobState> asyncJobs = new ConcurrentHashMap<>();
     private final QuoteWorkflowService quoteWorkflowService;
-    private final ExecutorService asyncExecutor;
+    private final AsyncJobStore asyncJobStore;
+    private final UploadSpoolService uploadSpoolService;
+    private final AdmissionControl admissionControl;
+    private final TenantKeys tenantKeys;
 
     public QuoteController(
             QuoteWorkflowService quoteWorkflowService,
-            @Value("${ocr.async.parallelism:8}") int asyncParallelism) {
+            AsyncJobStore asyncJobStore,
+            UploadSpoolService uploadSpoolService,
+            AdmissionControl admissionControl,
+            TenantKeys tenantKeys) {
         this.quoteWorkflowService = quoteWorkflowService;
-        this.asyncExecutor = Executors.newFixedThreadPool(Math.max(1, asyncParallelism));
-    }
-
-    @PreDestroy
-    void shutdownAsyncExecutor() {
-        asyncExecutor.shutdown();
+        this.asyncJobStore = asyncJobStore;
+        this.uploadSpoolService = uploadSpoolService;
+        this.admissionControl = admissionControl;
+        this.tenantKeys = tenantKeys;
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<OcrQuoteDTO> uploadAndProcess(@RequestParam("file") MultipartFile file) {
-        OcrQuoteDTO result = quoteWorkflowService.processPdf(file);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<OcrQuoteDTO> uploadAndProcess(
+            @RequestParam("file") MultipartFile file,
+            @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
+        AdmissionControl.Ticket ticket = admissionControl.admit(
+                tenantKeys.tenantOf(authorizationHeader), file != null ? file.getSize() : 0L);
+        try {
+            OcrQuoteDTO result = quoteWorkflowService.processPdf(file, authorizationHeader);
+            return ResponseEntity.ok(result);
+        } catch (StageOverloadedException ex) {
+            ticket.discard();
+            throw admissionControl.stageRejected();
+        } finally {
+            ticket.close();
+        }
     }
 
     @PostMapping("/process")
@@ -79,35 +84,57 @@ public class QuoteController {
     @PostMapping(value = "/upload/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String, String>> uploadAndProcessAsync(
             @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "priority", required = false) String priority,
             @RequestHeader(value = "Authorization", required = false) String authorizationHeader) {
-        final byte[] fileBytes;
+        AdmissionControl.Ticket ticket = admissionControl.admit(
+                tenantKeys.tenantOf(authorizationHeader), file != null ? file.getSize() : 0L);
+        // Async jobs are ASYNC or, on request, BULK; INTERACTIVE is reserved for callers waiting on the response.
+        Priority jobPriority = Priority.parse(priority, Priority.ASYNC) == Priority.BULK
+                ? Priority.BULK : Priority.ASYNC;
+        final Path spoolFile;
         final String fileName = file != null ? file.getOriginalFilename() : null;
         try {
-            fileBytes = file != null ? file.getBytes() : new byte[0];
+            spoolFile = uploadSpoolService.spool(file);
         } catch (Exception ex) {
+            ticket.discard();
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
                     "status", "FAILED",
                     "error", "Unable to read uploaded file"
             ));
         }
 
-        String jobId = UUID.randomUUID().toString();
-        AsyncJobState job = new AsyncJobState(jobId);
-        asyncJobs.put(jobId, job);
+        CompletableFuture<OcrQuoteDTO> pipeline;
+        try {
+            pipeline = quoteWorkflowService.processPdfFileAsync(
+                    spoolFile, fileName, authorizationHeader, jobPriority);
+        } catch (Exception ex) {
+            pipeline = CompletableFuture.failedFuture(ex);
+        }
+        if (pipeline.isCompletedExceptionally() && pipeline.exceptionNow() instanceof StageOverloadedException) {
+            uploadSpoolService.release(spoolFile);
+            ticket.discard();
+            throw admissionControl.stageRejected();
+        }
 
-        CompletableFuture.runAsync(() -> {
+        String jobId = asyncJobStore.register();
+        pipeline.whenComplete((result, error) -> {
             try {
-                job.result = quoteWorkflowService.processPdfBytes(fileBytes, fileName, authorizationHeader);
-                job.status = JobStatus.COMPLETED;
-            } catch (Exception ex) {
-                job.error = ex.getMessage();
-                job.status = JobStatus.FAILED;
+                if (error == null) {
+                    asyncJobStore.complete(jobId, result);
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    asyncJobStore.fail(jobId, cause.getMessage());
+                }
+            } finally {
+                uploadSpoolService.release(spoolFile);
+                ticket.close();
             }
-        }, asyncExecutor);
+        });
 
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
                 "jobId", jobId,
-                "status", job.status.name(),
+                "status", AsyncJobStatus.PROCESSING.name(),
                 "statusUrl", "/api/ocr/" + jobId + "/status",
                 "resultUrl", "/api/ocr/" + jobId + "/status"
         ));
@@ -115,23 +142,39 @@ public class QuoteController {
 
     @GetMapping("/{id}/status")
     public ResponseEntity<Map<String, Object>> getStatus(@PathVariable String id) {
-        AsyncJobState job = asyncJobs.get(id);
-        if (job == null) {
+        Optional<AsyncJob> found = asyncJobStore.find(id);
+        if (found.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
                     "jobId", id,
                     "status", "NOT_FOUND"
             ));
         }
 
+        AsyncJob job = found.get();
         Map<String, Object> response = new java.util.LinkedHashMap<>();
-        response.put("jobId", job.jobId);
-        response.put("status", job.status.name());
-        if (job.status == JobStatus.COMPLETED && job.result != null) {
-            response.put("result", job.result);
+        response.put("jobId", job.getJobId());
+        response.put("status", job.getStatus().name());
+        if (job.getStatus() == AsyncJobStatus.COMPLETED && job.getResult() != null) {
+            response.put("result", job.getResult());
         }
-        if (job.status == JobStatus.FAILED && job.error != null) {
-            response.put("error", job.error);
+        if (job.getStatus() == AsyncJobStatus.FAILED && job.getError() != null) {
+            response.put("error", job.getError());
         }
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Over-limit uploads get 429 with {@code Retry-After} so clients back off and load balancers can try another node.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleAdmissionRejected(AdmissionRejectedException ex) {
+        long retryAfterSeconds = Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(ex.getRetryAfterMs() + 999L));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(Map.of(
+                        "status", "REJECTED",
+                        "reason", ex.getReason(),
+                        "error", ex.getMessage()
+                ));
+    }
 }
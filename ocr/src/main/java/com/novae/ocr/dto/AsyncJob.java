@@ -0,0 +1,53 @@
+package com.novae.ocr.dto;
+
+/**
+ * Snapshot of an async upload job (status plus result or error once finished).
+ */
+public class AsyncJob {
+
+    private String jobId;
+    private AsyncJobStatus status;
+    private OcrQuoteDTO result;
+    private String error;
+
+    public AsyncJob() {}
+
+    public AsyncJob(String jobId, AsyncJobStatus status, OcrQuoteDTO result, String error) {
+        this.jobId = jobId;
+        this.status = status;
+        this.result = result;
+        this.error = error;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public AsyncJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AsyncJobStatus status) {
+        this.status = status;
+    }
+
+    public OcrQuoteDTO getResult() {
+        return result;
+    }
+
+    public void setResult(OcrQuoteDTO result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
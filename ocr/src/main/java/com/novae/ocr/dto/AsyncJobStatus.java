@@ -0,0 +1,10 @@
+package com.novae.ocr.dto;
+
+/**
+ * Lifecycle of an async upload job.
+ */
+public enum AsyncJobStatus {
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -91,4 +91,21 @@ public class ExtractedLine {
     public void setUnitPrice(BigDecimal unitPrice) {
         this.unitPrice = unitPrice;
     }
+
+    /**
+     * Deep copy (options list included) so cached lines are never shared with callers.
+     */
+    public ExtractedLine copy() {
+        ExtractedLine copy = new ExtractedLine();
+        copy.setQty(qty);
+        copy.setBrand(brand);
+        copy.setDescription(description);
+        copy.setSize(size);
+        copy.setCapacity(capacity);
+        copy.setModel(model);
+        copy.setColor(color);
+        copy.setOptions(options != null ? new ArrayList<>(options) : null);
+        copy.setUnitPrice(unitPrice);
+        return copy;
+    }
 }
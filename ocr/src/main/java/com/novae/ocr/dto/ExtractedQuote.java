@@ -72,4 +72,25 @@ public class ExtractedQuote {
     public void setDocumentType(String documentType) {
         this.documentType = documentType;
     }
+
+    /**
+     * Deep copy (lines included) so cached quotes are never shared with callers.
+     */
+    public ExtractedQuote copy() {
+        ExtractedQuote copy = new ExtractedQuote();
+        copy.setPoNumber(poNumber);
+        copy.setVendorName(vendorName);
+        List<ExtractedLine> copiedLines = new ArrayList<>();
+        if (lines != null) {
+            for (ExtractedLine line : lines) {
+                copiedLines.add(line != null ? line.copy() : null);
+            }
+        }
+        copy.setLines(copiedLines);
+        copy.setSubtotal(subtotal);
+        copy.setTax(tax);
+        copy.setTotal(total);
+        copy.setDocumentType(documentType);
+        return copy;
+    }
 }
@@ -0,0 +1,36 @@
+package com.novae.ocr.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OCR output of one PDF: full content plus per-page texts (cached by content hash).
+ */
+public class OcrDocument {
+
+    private String content = "";
+    private List<String> pageTexts = new ArrayList<>();
+
+    public OcrDocument() {}
+
+    public OcrDocument(String content, List<String> pageTexts) {
+        this.content = content != null ? content : "";
+        this.pageTexts = pageTexts != null ? pageTexts : new ArrayList<>();
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content != null ? content : "";
+    }
+
+    public List<String> getPageTexts() {
+        return pageTexts;
+    }
+
+    public void setPageTexts(List<String> pageTexts) {
+        this.pageTexts = pageTexts != null ? pageTexts : new ArrayList<>();
+    }
+}
@@ -78,4 +78,17 @@ public class OcrOptionDTO {
     public void setConfidence(double confidence) {
         this.confidence = confidence;
     }
+
+    public OcrOptionDTO copy() {
+        OcrOptionDTO copy = new OcrOptionDTO();
+        copy.setSalesCode(salesCode);
+        copy.setOption(option);
+        copy.setName(name);
+        copy.setPrice(price);
+        copy.setLongDescription(longDescription);
+        copy.setDescription(description);
+        copy.setStandard(standard);
+        copy.setConfidence(confidence);
+        return copy;
+    }
 }
@@ -49,4 +49,10 @@ public class ProductSuggestion {
     public void setConfidence(double confidence) {
         this.confidence = confidence;
     }
+
+    public ProductSuggestion copy() {
+        ProductSuggestion copy = new ProductSuggestion(sku, name, confidence);
+        copy.setModelId(modelId);
+        return copy;
+    }
 }
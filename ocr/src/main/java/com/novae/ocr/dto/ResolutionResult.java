@@ -53,4 +53,20 @@ public class ResolutionResult {
     public void setMissingFields(List<String> missingFields) {
         this.missingFields = missingFields != null ? missingFields : new ArrayList<>();
     }
+
+    public ResolutionResult copy() {
+        ResolutionResult copy = new ResolutionResult();
+        List<ResolvedLine> copiedLines = new ArrayList<>();
+        if (lines != null) {
+            for (ResolvedLine line : lines) {
+                copiedLines.add(line != null ? line.copy() : null);
+            }
+        }
+        copy.setLines(copiedLines);
+        copy.setResolvedVendorId(resolvedVendorId);
+        copy.setOverallConfidence(overallConfidence);
+        copy.setWarnings(warnings != null ? new ArrayList<>(warnings) : null);
+        copy.setMissingFields(missingFields != null ? new ArrayList<>(missingFields) : null);
+        return copy;
+    }
 }
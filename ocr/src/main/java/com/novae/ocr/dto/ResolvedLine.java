@@ -80,4 +80,32 @@ public class ResolvedLine {
     public void setSuggestions(List<ProductSuggestion> suggestions) {
         this.suggestions = suggestions != null ? suggestions : new ArrayList<>();
     }
+
+    /**
+     * Deep copy (option details and suggestions included) so cached lines are never shared with callers.
+     */
+    public ResolvedLine copy() {
+        ResolvedLine copy = new ResolvedLine();
+        copy.setSku(sku);
+        copy.setCanonicalName(canonicalName);
+        copy.setNormalizedColor(normalizedColor);
+        copy.setNormalizedOptions(normalizedOptions != null ? new ArrayList<>(normalizedOptions) : null);
+        List<OcrOptionDTO> copiedDetails = new ArrayList<>();
+        if (optionDetails != null) {
+            for (OcrOptionDTO detail : optionDetails) {
+                copiedDetails.add(detail != null ? detail.copy() : null);
+            }
+        }
+        copy.setOptionDetails(copiedDetails);
+        copy.setConfidence(confidence);
+        copy.setRowFlags(rowFlags != null ? new ArrayList<>(rowFlags) : null);
+        List<ProductSuggestion> copiedSuggestions = new ArrayList<>();
+        if (suggestions != null) {
+            for (ProductSuggestion suggestion : suggestions) {
+                copiedSuggestions.add(suggestion != null ? suggestion.copy() : null);
+            }
+        }
+        copy.setSuggestions(copiedSuggestions);
+        return copy;
+    }
 }
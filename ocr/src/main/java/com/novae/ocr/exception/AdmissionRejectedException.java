@@ -0,0 +1,27 @@
+package com.novae.ocr.exception;
+
+/**
+ * Thrown when a new job is refused because the node is at its job, in-flight byte or heap limit.
+ */
+public class AdmissionRejectedException extends OcrProcessingException {
+
+    private final String reason;
+    private final long retryAfterMs;
+
+    public AdmissionRejectedException(String reason, long retryAfterMs) {
+        super("Job not admitted (" + reason + "); retry in " + Math.max(0L, retryAfterMs) + " ms");
+        this.reason = reason;
+        this.retryAfterMs = Math.max(0L, retryAfterMs);
+    }
+
+    /**
+     * Limit that was hit: {@code jobs}, {@code tenant}, {@code bytes}, {@code heap} or {@code stage}.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,21 @@
+package com.novae.ocr.exception;
+
+/**
+ * Thrown instead of calling a downstream whose circuit breaker is open.
+ */
+public class CircuitOpenException extends OcrProcessingException {
+
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String breakerName, long retryAfterMs) {
+        super("Circuit open for " + breakerName + "; retry in " + Math.max(0L, retryAfterMs) + " ms");
+        this.retryAfterMs = Math.max(0L, retryAfterMs);
+    }
+
+    /**
+     * Time until the breaker lets a probe call through.
+     */
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,15 @@
+package com.novae.ocr.exception;
+
+/**
+ * Thrown when a downstream call cannot get a concurrency permit within its max wait.
+ */
+public class ConcurrencyLimitExceededException extends OcrProcessingException {
+
+    public ConcurrencyLimitExceededException(String limiterName) {
+        super("Concurrency limit exceeded for " + limiterName);
+    }
+
+    public ConcurrencyLimitExceededException(String limiterName, Throwable cause) {
+        super("Concurrency limit exceeded for " + limiterName, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package com.novae.ocr.exception;
+
+import com.novae.ocr.constants.OcrConstants;
+
+/**
+ * Thrown when a job's processing deadline runs out while waiting on a stage.
+ */
+public class DeadlineExceededException extends OcrProcessingException {
+
+    public DeadlineExceededException(String stage) {
+        super(OcrConstants.ERROR_DEADLINE_EXCEEDED + " (" + stage + ")");
+    }
+}
@@ -0,0 +1,18 @@
+package com.novae.ocr.exception;
+
+/**
+ * Thrown when new work reaches a pipeline stage whose workers are busy and whose queue is full.
+ */
+public class StageOverloadedException extends OcrProcessingException {
+
+    private final String stageName;
+
+    public StageOverloadedException(String stageName) {
+        super("Pipeline stage " + stageName + " is full");
+        this.stageName = stageName;
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+}
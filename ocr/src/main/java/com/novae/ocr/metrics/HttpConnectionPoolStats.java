@@ -0,0 +1,45 @@
+package com.novae.ocr.metrics;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Utilisation of the shared outbound HTTP connection pool, in total and per route.
+ */
+public class HttpConnectionPoolStats implements StatsProvider {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public HttpConnectionPoolStats(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public String statsName() {
+        return "httpPool";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = toMap(connectionManager.getTotalStats());
+        Map<String, Object> routes = new LinkedHashMap<>();
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            routes.put(route.getTargetHost().toURI(), toMap(connectionManager.getStats(route)));
+        }
+        stats.put("routes", routes);
+        return stats;
+    }
+
+    private static Map<String, Object> toMap(PoolStats poolStats) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leased", poolStats.getLeased());
+        stats.put("available", poolStats.getAvailable());
+        stats.put("pending", poolStats.getPending());
+        stats.put("max", poolStats.getMax());
+        return stats;
+    }
+}
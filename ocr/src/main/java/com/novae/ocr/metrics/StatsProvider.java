@@ -0,0 +1,19 @@
+package com.novae.ocr.metrics;
+
+import java.util.Map;
+
+/**
+ * Component that publishes runtime counters under {@code /api/ocr/stats}.
+ */
+public interface StatsProvider {
+
+    /**
+     * Key under which the stats are published (e.g. "asyncJobs").
+     */
+    String statsName();
+
+    /**
+     * Point-in-time snapshot of counters and gauges; must be cheap and thread-safe.
+     */
+    Map<String, Object> stats();
+}
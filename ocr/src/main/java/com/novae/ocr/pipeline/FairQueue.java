@@ -0,0 +1,90 @@
+package com.novae.ocr.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Deficit round robin over per-tenant FIFO queues. Every item costs one unit and a tenant's turn is worth its
+ * weight, so with equal weights tenants alternate one item at a time however much each has queued. Not
+ * thread-safe; guarded by the owning stage's lock.
+ */
+final class FairQueue<T> {
+
+    private final ToIntFunction<String> weights;
+    private final Map<String, ArrayDeque<T>> queues = new HashMap<>();
+    /** Tenants with queued items; the head has the turn. */
+    private final ArrayDeque<String> turns = new ArrayDeque<>();
+    /** Items the tenant holding the turn may still take before passing it on. */
+    private final Map<String, Integer> credits = new HashMap<>();
+    private int size;
+
+    FairQueue(ToIntFunction<String> weights) {
+        this.weights = weights;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Enqueue time of the oldest item (each tenant's head is its oldest); only meaningful while not empty.
+     */
+    long oldestNanos(ToLongFunction<T> enqueuedNanos) {
+        long oldest = 0L;
+        boolean found = false;
+        for (ArrayDeque<T> queue : queues.values()) {
+            long head = enqueuedNanos.applyAsLong(queue.peekFirst());
+            if (!found || head - oldest < 0) {
+                oldest = head;
+                found = true;
+            }
+        }
+        return oldest;
+    }
+
+    void add(String tenant, T item) {
+        ArrayDeque<T> queue = queues.computeIfAbsent(tenant, k -> new ArrayDeque<>());
+        if (queue.isEmpty()) {
+            turns.addLast(tenant);
+        }
+        queue.addLast(item);
+        size++;
+    }
+
+    /**
+     * Takes the next item in fair order, passing over tenants for which {@code eligible} is false (they keep their
+     * queued items but lose the turn).
+     *
+     * @return the item, or null if no eligible tenant has one
+     */
+    T poll(Predicate<String> eligible) {
+        for (int i = 0, tenants = turns.size(); i < tenants; i++) {
+            String tenant = turns.peekFirst();
+            if (!eligible.test(tenant)) {
+                credits.remove(tenant);
+                turns.addLast(turns.pollFirst());
+                continue;
+            }
+            ArrayDeque<T> queue = queues.get(tenant);
+            T item = queue.pollFirst();
+            size--;
+            int credit = credits.getOrDefault(tenant, Math.max(1, weights.applyAsInt(tenant))) - 1;
+            if (queue.isEmpty()) {
+                turns.pollFirst();
+                queues.remove(tenant);
+                credits.remove(tenant);
+            } else if (credit <= 0) {
+                turns.addLast(turns.pollFirst());
+                credits.remove(tenant);
+            } else {
+                credits.put(tenant, credit);
+            }
+            return item;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,403 @@
+package com.novae.ocr.pipeline;
+
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.context.ProcessingContext;
+import com.novae.ocr.exception.StageOverloadedException;
+import com.novae.ocr.resilience.LatencyTracker;
+import com.novae.ocr.util.BlockingExecutors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * One stage of the staged quote pipeline: a bounded queue in front of a fixed number of worker slots.
+ * <p>
+ * A task keeps its slot until the future it returns completes, so asynchronous work (Azure OCR polling) holds a
+ * slot but no thread, and a task that hands its output to the next stage keeps its slot until that stage accepted
+ * it. New work finding every slot busy and the queue full is rejected with {@link StageOverloadedException}; work
+ * handed over from an upstream stage is never rejected but waits for queue space, so a slow stage backs up into the
+ * stages before it instead of growing an unbounded queue.
+ * <p>
+ * Queued work is taken by job {@link Priority} (aged, so bulk keeps moving), then per tenant in deficit round robin
+ * order ({@link FairQueue}), and no tenant runs more than {@code maxActivePerTenant} tasks at once, so one tenant's
+ * bulk upload cannot take every slot.
+ */
+public class PipelineStage {
+
+    private static final int LATENCY_WINDOW = 256;
+    private static final int TENANT_LATENCY_WINDOW = 64;
+    /** Idle tenants beyond this many are dropped from the stats. */
+    private static final int MAX_TRACKED_TENANTS = 100;
+
+    private final String name;
+    private final int workers;
+    private final int queueCapacity;
+    private final int maxActivePerTenant;
+    private final long agingNanos;
+    private final ExecutorService executor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, FairQueue<Task>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, LatencyTracker> queueWaitByPriority = new EnumMap<>(Priority.class);
+    private int queued;
+    /** Handoffs from upstream waiting for queue space; at most one per upstream slot. */
+    private final ArrayDeque<Task> waiting = new ArrayDeque<>();
+    private final Map<String, TenantState> tenants = new LinkedHashMap<>();
+    private final LatencyTracker queueWait = new LatencyTracker(LATENCY_WINDOW);
+    private final LatencyTracker serviceTime = new LatencyTracker(LATENCY_WINDOW);
+
+    private int active;
+    private long submitted;
+    private long rejected;
+    private long completed;
+    private long failed;
+    private int maxQueueDepth;
+
+    /**
+     * @param maxTenantShare share of {@code workers} one tenant may occupy (at least one slot)
+     * @param tenantWeights  turns per round in the fair queue; tenants default to 1
+     * @param agingMs        wait after which queued work competes one priority class higher
+     */
+    public PipelineStage(String name, int workers, int queueCapacity, double maxTenantShare,
+                         ToIntFunction<String> tenantWeights, long agingMs, boolean virtualThreads) {
+        this.name = name;
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.maxActivePerTenant = Math.max(1, (int) Math.ceil(this.workers * Math.min(1.0, maxTenantShare)));
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, agingMs));
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new FairQueue<>(tenantWeights));
+            queueWaitByPriority.put(priority, new LatencyTracker(TENANT_LATENCY_WINDOW));
+        }
+        // Slots bound the concurrency; the executor only supplies threads.
+        this.executor = BlockingExecutors.unbounded("stage-" + name, virtualThreads);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Queues new work for {@code job}.
+     *
+     * @param work runs on a worker; the slot is released when the returned future completes
+     * @param job  completed exceptionally if {@code work} fails
+     * @throws StageOverloadedException if the tenant cannot start now and the queue is full
+     */
+    public void submit(ProcessingContext ctx, Supplier<CompletableFuture<?>> work, CompletableFuture<?> job) {
+        Task task;
+        lock.lock();
+        try {
+            task = new Task(tenantState(ctx.tenant()), ctx.priority(), work, job);
+            if (!canStart(task.tenant) && queued >= queueCapacity) {
+                rejected++;
+                task.tenant.rejected++;
+                throw new StageOverloadedException(name);
+            }
+            submitted++;
+            task.tenant.submitted++;
+            if (canStart(task.tenant)) {
+                occupy(task);
+            } else {
+                enqueue(task);
+                task.tenant.pending++;
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        start(task);
+    }
+
+    /**
+     * Queues work handed over by an upstream stage, waiting for queue space instead of rejecting.
+     *
+     * @return completes once the work is queued or running; the upstream task should hold its slot until then
+     */
+    public CompletableFuture<Void> handoff(ProcessingContext ctx, Supplier<CompletableFuture<?>> work,
+                                           CompletableFuture<?> job) {
+        Task task;
+        lock.lock();
+        try {
+            task = new Task(tenantState(ctx.tenant()), ctx.priority(), work, job);
+            submitted++;
+            task.tenant.submitted++;
+            if (canStart(task.tenant)) {
+                occupy(task);
+            } else {
+                task.tenant.pending++;
+                if (queued < queueCapacity) {
+                    enqueue(task);
+                    task.accepted.complete(null);
+                } else {
+                    waiting.add(task);
+                }
+                return task.accepted;
+            }
+        } finally {
+            lock.unlock();
+        }
+        task.accepted.complete(null);
+        start(task);
+        return task.accepted;
+    }
+
+    private TenantState tenantState(String tenant) {
+        return tenants.computeIfAbsent(tenant, TenantState::new);
+    }
+
+    private boolean canStart(TenantState tenant) {
+        return active < workers && tenant.active < maxActivePerTenant;
+    }
+
+    private void occupy(Task task) {
+        active++;
+        task.tenant.active++;
+    }
+
+    private void enqueue(Task task) {
+        queues.get(task.priority).add(task.tenant.key, task);
+        queued++;
+        maxQueueDepth = Math.max(maxQueueDepth, queued);
+    }
+
+    /**
+     * Takes the next startable task from the priority class whose oldest task has the best aged rank, falling back
+     * to lower-ranked classes when every tenant queued in a class is at its cap.
+     */
+    private Task pollQueued() {
+        if (queued == 0) {
+            return null;
+        }
+        long now = System.nanoTime();
+        List<Priority> order = new ArrayList<>(queues.size());
+        Map<Priority, Double> ranks = new EnumMap<>(Priority.class);
+        for (Map.Entry<Priority, FairQueue<Task>> entry : queues.entrySet()) {
+            if (entry.getValue().size() > 0) {
+                long waited = now - entry.getValue().oldestNanos(task -> task.enqueuedNanos);
+                ranks.put(entry.getKey(), entry.getKey().rank(waited, agingNanos));
+                order.add(entry.getKey());
+            }
+        }
+        order.sort((a, b) -> Double.compare(ranks.get(a), ranks.get(b)));
+        Predicate<String> underCap = tenant -> tenants.get(tenant).active < maxActivePerTenant;
+        for (Priority priority : order) {
+            Task task = queues.get(priority).poll(underCap);
+            if (task != null) {
+                queued--;
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the waiting handoff with the best aged rank, considering only tasks {@code eligible} accepts.
+     */
+    private Task pollWaiting(Predicate<Task> eligible) {
+        long now = System.nanoTime();
+        Task best = null;
+        double bestRank = Double.MAX_VALUE;
+        for (Task task : waiting) {
+            double rank = task.priority.rank(now - task.enqueuedNanos, agingNanos);
+            if (eligible.test(task) && (best == null || rank < bestRank)) {
+                best = task;
+                bestRank = rank;
+            }
+        }
+        if (best != null) {
+            waiting.remove(best);
+        }
+        return best;
+    }
+
+    private void start(Task task) {
+        executor.execute(() -> run(task));
+    }
+
+    private void run(Task task) {
+        long startNs = System.nanoTime();
+        queueWait.record(startNs - task.enqueuedNanos);
+        task.tenant.queueWait.record(startNs - task.enqueuedNanos);
+        queueWaitByPriority.get(task.priority).record(startNs - task.enqueuedNanos);
+        CompletableFuture<?> done;
+        try {
+            done = task.work.get();
+        } catch (RuntimeException e) {
+            done = CompletableFuture.failedFuture(e);
+        }
+        if (done == null) {
+            done = CompletableFuture.completedFuture(null);
+        }
+        done.whenComplete((ignored, error) -> {
+            serviceTime.record(System.nanoTime() - startNs);
+            if (error != null) {
+                task.job.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+            release(task, error == null);
+        });
+    }
+
+    /**
+     * Gives the freed slot to the next eligible task (queued first, then waiting handoffs) and moves waiting
+     * handoffs into the queue space that opened.
+     */
+    private void release(Task finished, boolean succeeded) {
+        Task next;
+        List<Task> accepted = new ArrayList<>(1);
+        lock.lock();
+        try {
+            if (succeeded) {
+                completed++;
+            } else {
+                failed++;
+            }
+            active--;
+            finished.tenant.active--;
+            next = pollQueued();
+            if (next == null) {
+                next = pollWaiting(task -> task.tenant.active < maxActivePerTenant);
+                if (next != null) {
+                    accepted.add(next);
+                }
+            }
+            if (next != null) {
+                occupy(next);
+                next.tenant.pending--;
+            }
+            while (!waiting.isEmpty() && queued < queueCapacity) {
+                Task moved = pollWaiting(task -> true);
+                enqueue(moved);
+                accepted.add(moved);
+            }
+            pruneIdleTenants();
+        } finally {
+            lock.unlock();
+        }
+        for (Task task : accepted) {
+            task.accepted.complete(null);
+        }
+        if (next != null) {
+            start(next);
+        }
+    }
+
+    private void pruneIdleTenants() {
+        if (tenants.size() <= MAX_TRACKED_TENANTS) {
+            return;
+        }
+        tenants.values().removeIf(tenant -> tenant.active == 0 && tenant.pending == 0);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queue wait and service time are percentiles over the last {@value #LATENCY_WINDOW} tasks; service time is how
+     * long a task held its slot, including any wait for the next stage to accept its output.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<TenantState, Map<String, Object>> tenantCounts = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("workers", workers);
+            stats.put("maxActivePerTenant", maxActivePerTenant);
+            stats.put("queueCapacity", queueCapacity);
+            stats.put("active", active);
+            stats.put("queueDepth", queued);
+            Map<Priority, Integer> queuedByPriority = new EnumMap<>(Priority.class);
+            for (Map.Entry<Priority, FairQueue<Task>> entry : queues.entrySet()) {
+                queuedByPriority.put(entry.getKey(), entry.getValue().size());
+            }
+            stats.put("queuedByPriority", queuedByPriority);
+            stats.put("maxQueueDepth", maxQueueDepth);
+            stats.put("waitingHandoffs", waiting.size());
+            stats.put("submitted", submitted);
+            stats.put("rejected", rejected);
+            stats.put("completed", completed);
+            stats.put("failed", failed);
+            for (TenantState tenant : tenants.values()) {
+                Map<String, Object> counts = new LinkedHashMap<>();
+                counts.put("active", tenant.active);
+                counts.put("queued", tenant.pending);
+                counts.put("submitted", tenant.submitted);
+                counts.put("rejected", tenant.rejected);
+                tenantCounts.put(tenant, counts);
+            }
+        } finally {
+            lock.unlock();
+        }
+        stats.put("queueWaitP50Ms", millis(queueWait.percentileNanos(0.5)));
+        stats.put("queueWaitP95Ms", millis(queueWait.percentileNanos(0.95)));
+        stats.put("serviceP50Ms", millis(serviceTime.percentileNanos(0.5)));
+        stats.put("serviceP95Ms", millis(serviceTime.percentileNanos(0.95)));
+        Map<Priority, Long> waitByPriority = new EnumMap<>(Priority.class);
+        for (Map.Entry<Priority, LatencyTracker> entry : queueWaitByPriority.entrySet()) {
+            waitByPriority.put(entry.getKey(), millis(entry.getValue().percentileNanos(0.95)));
+        }
+        stats.put("queueWaitP95MsByPriority", waitByPriority);
+        Map<String, Object> tenantStats = new LinkedHashMap<>();
+        for (Map.Entry<TenantState, Map<String, Object>> entry : tenantCounts.entrySet()) {
+            Map<String, Object> counts = entry.getValue();
+            counts.put("queueWaitP50Ms", millis(entry.getKey().queueWait.percentileNanos(0.5)));
+            counts.put("queueWaitP95Ms", millis(entry.getKey().queueWait.percentileNanos(0.95)));
+            tenantStats.put(entry.getKey().key, counts);
+        }
+        stats.put("tenants", tenantStats);
+        return stats;
+    }
+
+    private static long millis(long nanos) {
+        return nanos < 0 ? -1L : nanos / 1_000_000;
+    }
+
+    /**
+     * Per-tenant counters; guarded by the stage lock except {@code queueWait}, which has its own.
+     */
+    private static final class TenantState {
+
+        private final String key;
+        private final LatencyTracker queueWait = new LatencyTracker(TENANT_LATENCY_WINDOW);
+        private int active;
+        /** Queued or waiting to be handed over. */
+        private int pending;
+        private long submitted;
+        private long rejected;
+
+        private TenantState(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Task {
+
+        private final TenantState tenant;
+        private final Priority priority;
+        private final Supplier<CompletableFuture<?>> work;
+        private final CompletableFuture<?> job;
+        private final CompletableFuture<Void> accepted = new CompletableFuture<>();
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Task(TenantState tenant, Priority priority, Supplier<CompletableFuture<?>> work,
+                     CompletableFuture<?> job) {
+            this.tenant = tenant;
+            this.priority = priority;
+            this.work = work;
+            this.job = job;
+        }
+    }
+}
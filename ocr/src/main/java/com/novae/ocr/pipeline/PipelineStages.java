@@ -0,0 +1,186 @@
+package com.novae.ocr.pipeline;
+
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.resilience.LatencyTracker;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The stages a quote job moves through when {@code ocr.stages.enabled}: OCR, extract, resolve and finish
+ * (validation and mapping). Each has its own {@code ocr.stages.<stage>.workers} and
+ * {@code ocr.stages.<stage>.queue-capacity}, so OCR for the next upload can start while earlier jobs wait on
+ * resolve. With the stages off, async jobs run start to finish in one slot of the {@code async} stage
+ * ({@code ocr.async.parallelism} workers, unbounded queue; admission control bounds the backlog).
+ * <p>
+ * Within each stage higher {@link com.novae.ocr.context.Priority} classes go first (aged by
+ * {@code ocr.priority.aging-ms}); within a class tenants (see {@link com.novae.ocr.context.TenantKeys}) take turns
+ * by {@code ocr.stages.tenant-weights}, and none may hold more than {@code ocr.stages.max-tenant-share} of the
+ * workers.
+ * End-to-end job latency is tracked per tenant.
+ */
+@Component
+public class PipelineStages implements StatsProvider {
+
+    private static final int MAX_TRACKED_TENANTS = 100;
+    private static final int JOB_LATENCY_WINDOW = 64;
+
+    private final boolean enabled;
+    private final PipelineStage ocr;
+    private final PipelineStage extract;
+    private final PipelineStage resolve;
+    private final PipelineStage finish;
+    private final PipelineStage async;
+    private final Map<String, Integer> tenantWeights;
+    private final ReentrantLock jobLatencyLock = new ReentrantLock();
+    private final Map<String, LatencyTracker> jobLatency = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LatencyTracker> eldest) {
+            return size() > MAX_TRACKED_TENANTS;
+        }
+    };
+
+    public PipelineStages(
+            @Value("${ocr.stages.enabled:false}") boolean enabled,
+            @Value("${ocr.stages.ocr.workers:8}") int ocrWorkers,
+            @Value("${ocr.stages.ocr.queue-capacity:64}") int ocrQueueCapacity,
+            @Value("${ocr.stages.extract.workers:4}") int extractWorkers,
+            @Value("${ocr.stages.extract.queue-capacity:16}") int extractQueueCapacity,
+            @Value("${ocr.stages.resolve.workers:4}") int resolveWorkers,
+            @Value("${ocr.stages.resolve.queue-capacity:16}") int resolveQueueCapacity,
+            @Value("${ocr.stages.finish.workers:2}") int finishWorkers,
+            @Value("${ocr.stages.finish.queue-capacity:16}") int finishQueueCapacity,
+            @Value("${ocr.async.parallelism:8}") int asyncParallelism,
+            @Value("${ocr.stages.max-tenant-share:0.5}") double maxTenantShare,
+            @Value("${ocr.stages.tenant-weights:}") String tenantWeights,
+            @Value("${ocr.priority.aging-ms:10000}") long priorityAgingMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.enabled = enabled;
+        this.tenantWeights = parseWeights(tenantWeights);
+        this.ocr = new PipelineStage("ocr", ocrWorkers, ocrQueueCapacity, maxTenantShare, this::weight,
+                priorityAgingMs, virtualThreads);
+        this.extract = new PipelineStage("extract", extractWorkers, extractQueueCapacity, maxTenantShare,
+                this::weight, priorityAgingMs, virtualThreads);
+        this.resolve = new PipelineStage("resolve", resolveWorkers, resolveQueueCapacity, maxTenantShare,
+                this::weight, priorityAgingMs, virtualThreads);
+        this.finish = new PipelineStage("finish", finishWorkers, finishQueueCapacity, maxTenantShare,
+                this::weight, priorityAgingMs, virtualThreads);
+        this.async = new PipelineStage("async", asyncParallelism, Integer.MAX_VALUE, maxTenantShare, this::weight,
+                priorityAgingMs, virtualThreads);
+    }
+
+    /**
+     * Parses {@code tenant=weight} pairs separated by commas; malformed entries are ignored.
+     */
+    private static Map<String, Integer> parseWeights(String value) {
+        Map<String, Integer> weights = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return weights;
+        }
+        for (String entry : value.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            try {
+                int weight = Integer.parseInt(entry.substring(eq + 1).trim());
+                weights.put(entry.substring(0, eq).trim(), Math.max(1, weight));
+            } catch (NumberFormatException ignored) {
+                // Skip the entry; the tenant keeps the default weight.
+            }
+        }
+        return weights;
+    }
+
+    private int weight(String tenant) {
+        return tenantWeights.getOrDefault(tenant, 1);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ocr.shutdown();
+        extract.shutdown();
+        resolve.shutdown();
+        finish.shutdown();
+        async.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public PipelineStage ocr() {
+        return ocr;
+    }
+
+    public PipelineStage extract() {
+        return extract;
+    }
+
+    public PipelineStage resolve() {
+        return resolve;
+    }
+
+    public PipelineStage finish() {
+        return finish;
+    }
+
+    /**
+     * Whole async jobs when the stages are off; never rejects.
+     */
+    public PipelineStage async() {
+        return async;
+    }
+
+    /**
+     * Records the time from submission to the finished quote for one of {@code tenant}'s jobs.
+     */
+    public void recordJob(String tenant, long latencyNanos) {
+        LatencyTracker tracker;
+        jobLatencyLock.lock();
+        try {
+            tracker = jobLatency.computeIfAbsent(tenant, k -> new LatencyTracker(JOB_LATENCY_WINDOW));
+        } finally {
+            jobLatencyLock.unlock();
+        }
+        tracker.record(latencyNanos);
+    }
+
+    @Override
+    public String statsName() {
+        return "pipelineStages";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put(ocr.name(), ocr.stats());
+        stats.put(extract.name(), extract.stats());
+        stats.put(resolve.name(), resolve.stats());
+        stats.put(finish.name(), finish.stats());
+        stats.put(async.name(), async.stats());
+        Map<String, LatencyTracker> trackers;
+        jobLatencyLock.lock();
+        try {
+            trackers = new LinkedHashMap<>(jobLatency);
+        } finally {
+            jobLatencyLock.unlock();
+        }
+        Map<String, Object> latency = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyTracker> entry : trackers.entrySet()) {
+            Map<String, Object> tenant = new LinkedHashMap<>();
+            tenant.put("samples", entry.getValue().size());
+            tenant.put("p50Ms", entry.getValue().percentileNanos(0.5) / 1_000_000);
+            tenant.put("p95Ms", entry.getValue().percentileNanos(0.95) / 1_000_000);
+            latency.put(entry.getKey(), tenant);
+        }
+        stats.put("tenantJobLatency", latency);
+        return stats;
+    }
+}
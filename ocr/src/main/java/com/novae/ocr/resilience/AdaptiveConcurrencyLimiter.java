@@ -0,0 +1,256 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.exception.ConcurrencyLimitExceededException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to downstream latency (gradient, Vegas-style) and backs off
+ * multiplicatively on timeouts/overload responses (AIMD decrease).
+ * <p>
+ * Each successful call yields an RTT sample. The limit moves towards
+ * {@code limit * min(1, tolerance * longRtt / sampleRtt) + sqrt(limit)}: it grows while samples stay close to the
+ * long-term average and shrinks once queueing inside the downstream service inflates latency. Growth only happens
+ * while at least half of the limit is in use, so an idle service does not inflate the limit without evidence.
+ * Callers that cannot get a permit within {@code maxWaitMs} are rejected.
+ * <p>
+ * Waiting callers get permits by {@link Priority} (aged by {@code agingMs}, see {@link Priority#rank}), then in
+ * arrival order.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_ALPHA = 0.05;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxWaitNanos;
+    private final long agingNanos;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private int inflight;
+    private final List<Waiter> waiters = new ArrayList<>();
+    private long nextWaiterSeq;
+    private final Map<Priority, Long> acquiredByPriority = new EnumMap<>(Priority.class);
+    private double longRttNanos;
+    private long acquired;
+    private long rejected;
+    private long dropped;
+    private long totalWaitNanos;
+    private long maxWaitObservedNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, long maxWaitMs,
+                                      long agingMs) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, agingMs));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Current whole-number limit.
+     */
+    public int currentLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * True while every permit is taken, i.e. a new call would queue.
+     */
+    public boolean saturated() {
+        lock.lock();
+        try {
+            return inflight >= (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until a permit is free.
+     *
+     * @throws ConcurrencyLimitExceededException if none frees up within the max wait or the thread is interrupted
+     */
+    public Permit acquire() {
+        return acquire(Priority.ASYNC, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #acquire()}, waiting no longer than {@code maxWaitNanos} (e.g. the caller's remaining deadline)
+     * and ahead of lower-priority waiters.
+     */
+    public Permit acquire(Priority priority, long maxWaitNanos) {
+        long startNs = System.nanoTime();
+        lock.lock();
+        try {
+            long remaining = Math.min(this.maxWaitNanos, maxWaitNanos);
+            if (inflight >= (int) limit || !waiters.isEmpty()) {
+                Waiter waiter = new Waiter(priority, nextWaiterSeq++, startNs);
+                waiters.add(waiter);
+                try {
+                    while (inflight >= (int) limit || waiter != nextWaiter()) {
+                        if (remaining <= 0L) {
+                            rejected++;
+                            throw new ConcurrencyLimitExceededException(name);
+                        }
+                        remaining = permitAvailable.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected++;
+                    throw new ConcurrencyLimitExceededException(name, e);
+                } finally {
+                    waiters.remove(waiter);
+                    // The next waiter may be able to go too (free permits left, or this one gave up).
+                    permitAvailable.signalAll();
+                }
+            }
+            inflight++;
+            acquired++;
+            acquiredByPriority.merge(priority, 1L, Long::sum);
+            long waitedNs = System.nanoTime() - startNs;
+            totalWaitNanos += waitedNs;
+            maxWaitObservedNanos = Math.max(maxWaitObservedNanos, waitedNs);
+            return new Permit(inflight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waiter with the best aged priority rank, earliest arrival on ties.
+     */
+    private Waiter nextWaiter() {
+        long now = System.nanoTime();
+        Waiter best = null;
+        double bestRank = Double.MAX_VALUE;
+        for (Waiter waiter : waiters) {
+            double rank = waiter.priority.rank(now - waiter.sinceNanos, agingNanos);
+            if (best == null || rank < bestRank || (rank == bestRank && waiter.seq < best.seq)) {
+                best = waiter;
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        long rttNs = System.nanoTime() - permit.startNs;
+        lock.lock();
+        try {
+            inflight--;
+            if (outcome == Outcome.SUCCESS) {
+                onSample(rttNs, permit.inflightAtStart);
+            } else if (outcome == Outcome.DROPPED) {
+                dropped++;
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            }
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(long rttNs, int inflightAtStart) {
+        longRttNanos = longRttNanos == 0.0 ? rttNs : longRttNanos * (1 - LONG_RTT_ALPHA) + rttNs * LONG_RTT_ALPHA;
+        if (inflightAtStart < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNs));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.min(maxLimit, Math.max(minLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    public Map<String, Object> stats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("limit", (int) limit);
+            stats.put("minLimit", minLimit);
+            stats.put("maxLimit", maxLimit);
+            stats.put("inflight", inflight);
+            stats.put("queued", waiters.size());
+            Map<Priority, Integer> queuedByPriority = new EnumMap<>(Priority.class);
+            for (Waiter waiter : waiters) {
+                queuedByPriority.merge(waiter.priority, 1, Integer::sum);
+            }
+            stats.put("queuedByPriority", queuedByPriority);
+            stats.put("acquired", acquired);
+            stats.put("acquiredByPriority", new EnumMap<>(acquiredByPriority));
+            stats.put("rejected", rejected);
+            stats.put("dropped", dropped);
+            stats.put("avgQueueWaitMs", acquired > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / acquired) : 0L);
+            stats.put("maxQueueWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitObservedNanos));
+            stats.put("avgRttMs", TimeUnit.NANOSECONDS.toMillis((long) longRttNanos));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum Outcome { SUCCESS, DROPPED, IGNORED }
+
+    private record Waiter(Priority priority, long seq, long sinceNanos) {}
+
+    /**
+     * One acquired slot. Report {@link #onSuccess()} or {@link #onDropped()}; closing without an outcome releases
+     * the slot without a sample (e.g. client-side errors that say nothing about downstream load).
+     */
+    public final class Permit implements AutoCloseable {
+        private final long startNs = System.nanoTime();
+        private final int inflightAtStart;
+        private boolean released;
+
+        private Permit(int inflightAtStart) {
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        public void onSuccess() {
+            finish(Outcome.SUCCESS);
+        }
+
+        /**
+         * Timeout or overload response: the limit backs off.
+         */
+        public void onDropped() {
+            finish(Outcome.DROPPED);
+        }
+
+        @Override
+        public void close() {
+            finish(Outcome.IGNORED);
+        }
+
+        private void finish(Outcome outcome) {
+            if (released) {
+                return;
+            }
+            released = true;
+            release(this, outcome);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.exception.AdmissionRejectedException;
+import com.novae.ocr.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for upload endpoints: a job is accepted only while the node is below
+ * {@code ocr.admission.max-jobs} unfinished jobs, {@code ocr.admission.max-inflight-bytes} of uploads being
+ * processed, and above {@code ocr.admission.min-free-heap-ratio} of free old generation after the last GC. A single
+ * tenant may hold at most {@code ocr.admission.max-jobs-per-tenant} of the unfinished jobs, so a bulk upload leaves
+ * room for others.
+ * <p>
+ * Rejected callers are told to retry after the median recent job duration (clamped to the configured range), the
+ * time in which a slot is most likely to free up.
+ */
+@Component
+public class AdmissionControl implements StatsProvider {
+
+    private static final int LATENCY_WINDOW = 128;
+    private static final MemoryPoolMXBean OLD_GEN = oldGenPool();
+
+    private final boolean enabled;
+    private final int maxJobs;
+    private final int maxJobsPerTenant;
+    private final long maxInflightBytes;
+    private final double minFreeHeapRatio;
+    private final long minRetryAfterMs;
+    private final long maxRetryAfterMs;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LatencyTracker jobDurations = new LatencyTracker(LATENCY_WINDOW);
+    private int inflightJobs;
+    private long inflightBytes;
+    private final Map<String, Integer> inflightByTenant = new HashMap<>();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    private final AtomicLong rejectedTenant = new AtomicLong();
+    private final AtomicLong rejectedBytes = new AtomicLong();
+    private final AtomicLong rejectedHeap = new AtomicLong();
+    private final AtomicLong rejectedStage = new AtomicLong();
+
+    public AdmissionControl(
+            @Value("${ocr.admission.enabled:false}") boolean enabled,
+            @Value("${ocr.admission.max-jobs:32}") int maxJobs,
+            @Value("${ocr.admission.max-jobs-per-tenant:16}") int maxJobsPerTenant,
+            @Value("${ocr.admission.max-inflight-bytes:268435456}") long maxInflightBytes,
+            @Value("${ocr.admission.min-free-heap-ratio:0.15}") double minFreeHeapRatio,
+            @Value("${ocr.admission.min-retry-after-seconds:1}") long minRetryAfterSeconds,
+            @Value("${ocr.admission.max-retry-after-seconds:60}") long maxRetryAfterSeconds) {
+        this.enabled = enabled;
+        this.maxJobs = Math.max(1, maxJobs);
+        this.maxJobsPerTenant = Math.max(1, Math.min(this.maxJobs, maxJobsPerTenant));
+        this.maxInflightBytes = Math.max(1L, maxInflightBytes);
+        this.minFreeHeapRatio = Math.max(0.0, Math.min(1.0, minFreeHeapRatio));
+        this.minRetryAfterMs = TimeUnit.SECONDS.toMillis(Math.max(1L, minRetryAfterSeconds));
+        this.maxRetryAfterMs = Math.max(this.minRetryAfterMs, TimeUnit.SECONDS.toMillis(maxRetryAfterSeconds));
+    }
+
+    /**
+     * Admits a job carrying {@code bytes} of upload. A single upload larger than the byte limit is admitted when
+     * nothing else is in flight, so it is not refused forever.
+     *
+     * @return ticket to close when the job finishes (success or failure)
+     * @throws AdmissionRejectedException if a limit is reached
+     */
+    public Ticket admit(String tenant, long bytes) {
+        long size = Math.max(0L, bytes);
+        if (!enabled) {
+            admitted.incrementAndGet();
+            return new Ticket(tenant, 0L, false);
+        }
+        if (freeHeapRatio() < minFreeHeapRatio) {
+            rejectedHeap.incrementAndGet();
+            throw new AdmissionRejectedException("heap", retryAfterMs());
+        }
+        lock.lock();
+        try {
+            if (inflightJobs >= maxJobs) {
+                rejectedJobs.incrementAndGet();
+                throw new AdmissionRejectedException("jobs", retryAfterMs());
+            }
+            if (inflightByTenant.getOrDefault(tenant, 0) >= maxJobsPerTenant) {
+                rejectedTenant.incrementAndGet();
+                throw new AdmissionRejectedException("tenant", retryAfterMs());
+            }
+            if (inflightJobs > 0 && inflightBytes + size > maxInflightBytes) {
+                rejectedBytes.incrementAndGet();
+                throw new AdmissionRejectedException("bytes", retryAfterMs());
+            }
+            inflightJobs++;
+            inflightBytes += size;
+            inflightByTenant.merge(tenant, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+        admitted.incrementAndGet();
+        return new Ticket(tenant, size, true);
+    }
+
+    /**
+     * Records a job the pipeline turned away after admission (its first stage was full).
+     */
+    public AdmissionRejectedException stageRejected() {
+        rejectedStage.incrementAndGet();
+        return new AdmissionRejectedException("stage", retryAfterMs());
+    }
+
+    /**
+     * True while a new job would currently be admitted; cheap enough for load balancer health checks.
+     */
+    public boolean accepting() {
+        if (!enabled) {
+            return true;
+        }
+        if (freeHeapRatio() < minFreeHeapRatio) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return inflightJobs < maxJobs && (inflightJobs == 0 || inflightBytes < maxInflightBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long retryAfterMs() {
+        long median = jobDurations.percentileNanos(0.5);
+        long ms = median < 0 ? minRetryAfterMs : TimeUnit.NANOSECONDS.toMillis(median);
+        return Math.min(maxRetryAfterMs, Math.max(minRetryAfterMs, ms));
+    }
+
+    /**
+     * The old generation: the heap pool supporting both usage and collection usage thresholds (G1, Parallel and
+     * Serial old gen, ZGC's single heap pool; eden and survivor spaces support only the latter). Null when none does.
+     */
+    private static MemoryPoolMXBean oldGenPool() {
+        MemoryPoolMXBean oldGen = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                    && pool.isCollectionUsageThresholdSupported()
+                    && (oldGen == null || pool.getUsage().getMax() > oldGen.getUsage().getMax())) {
+                oldGen = pool;
+            }
+        }
+        return oldGen;
+    }
+
+    /**
+     * Share of the old generation left free by its last collection, so garbage the next GC will reclaim does not
+     * count as in use. Before the first collection, or without an old generation pool, falls back to current heap
+     * use, which errs on the side of rejecting.
+     */
+    private static double freeHeapRatio() {
+        MemoryUsage afterGc = OLD_GEN != null ? OLD_GEN.getCollectionUsage() : null;
+        if (afterGc != null && afterGc.getCommitted() > 0) {
+            long max = afterGc.getMax() > 0 ? afterGc.getMax() : Runtime.getRuntime().maxMemory();
+            return freeRatio(max, afterGc.getUsed());
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return freeRatio(runtime.maxMemory(), runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    private static double freeRatio(long max, long used) {
+        return max <= 0 || max == Long.MAX_VALUE ? 1.0 : Math.max(0.0, (double) (max - used) / max);
+    }
+
+    @Override
+    public String statsName() {
+        return "admission";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("accepting", accepting());
+        lock.lock();
+        try {
+            stats.put("inflightJobs", inflightJobs);
+            stats.put("inflightBytes", inflightBytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxJobs", maxJobs);
+        stats.put("maxJobsPerTenant", maxJobsPerTenant);
+        stats.put("maxInflightBytes", maxInflightBytes);
+        stats.put("freeHeapRatio", Math.round(freeHeapRatio() * 1000) / 1000.0);
+        stats.put("heapPool", OLD_GEN != null ? OLD_GEN.getName() : "heap");
+        stats.put("minFreeHeapRatio", minFreeHeapRatio);
+        stats.put("admitted", admitted.get());
+        stats.put("rejectedJobs", rejectedJobs.get());
+        stats.put("rejectedTenant", rejectedTenant.get());
+        stats.put("rejectedBytes", rejectedBytes.get());
+        stats.put("rejectedHeap", rejectedHeap.get());
+        stats.put("rejectedStage", rejectedStage.get());
+        stats.put("retryAfterMs", retryAfterMs());
+        return stats;
+    }
+
+    /**
+     * Admission of one job; closing it frees the job's share of the limits. Closing twice has no effect.
+     */
+    public final class Ticket implements AutoCloseable {
+
+        private final String tenant;
+        private final long bytes;
+        private final boolean counted;
+        private final long admittedNanos = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Ticket(String tenant, long bytes, boolean counted) {
+            this.tenant = tenant;
+            this.bytes = bytes;
+            this.counted = counted;
+        }
+
+        @Override
+        public void close() {
+            release(true);
+        }
+
+        /**
+         * Frees the limits of a job that never ran (e.g. its upload could not be read), leaving the job duration
+         * estimate untouched.
+         */
+        public void discard() {
+            release(false);
+        }
+
+        private void release(boolean ran) {
+            if (!closed.compareAndSet(false, true) || !counted) {
+                return;
+            }
+            if (ran) {
+                jobDurations.record(System.nanoTime() - admittedNanos);
+            }
+            lock.lock();
+            try {
+                inflightJobs--;
+                inflightBytes -= bytes;
+                inflightByTenant.computeIfPresent(tenant, (key, jobs) -> jobs > 1 ? jobs - 1 : null);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.exception.CircuitOpenException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Count-based circuit breaker for one downstream.
+ * <p>
+ * While CLOSED the outcomes of the last {@code windowSize} calls are kept; once at least {@code minCalls} of them
+ * are recorded and the failure rate reaches {@code failureRateThreshold}, the breaker OPENs and rejects every call
+ * with {@link CircuitOpenException} for {@code openMs}. It then goes HALF_OPEN and lets {@code halfOpenProbes}
+ * concurrent calls through: all of them succeeding closes it, any failure opens it again. Outcomes of calls that
+ * started before the last state change are ignored.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final boolean enabled;
+    private final double failureRateThreshold;
+    private final int minCalls;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Ring of recent outcomes while CLOSED; true = failure. */
+    private final boolean[] window;
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAtNanos;
+    private int probesInflight;
+    private int probeSuccesses;
+    private long successes;
+    private long failures;
+    private long rejected;
+    private long opened;
+
+    public CircuitBreaker(String name, boolean enabled, double failureRateThreshold, int windowSize, int minCalls,
+                          long openMs, int halfOpenProbes) {
+        this.name = name;
+        this.enabled = enabled;
+        this.failureRateThreshold = Math.min(1.0, Math.max(0.0, failureRateThreshold));
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(window.length, minCalls));
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, openMs));
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits a call, or rejects it right away while the breaker is open (or half-open with all probes taken).
+     *
+     * @throws CircuitOpenException if the call must not be made
+     */
+    public Call acquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                long remaining = openNanos - (System.nanoTime() - openedAtNanos);
+                if (remaining > 0) {
+                    rejected++;
+                    throw new CircuitOpenException(name, TimeUnit.NANOSECONDS.toMillis(remaining));
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInflight >= halfOpenProbes) {
+                    rejected++;
+                    throw new CircuitOpenException(name, 0L);
+                }
+                probesInflight++;
+                return new Call(generation, true);
+            }
+            return new Call(generation, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finish(Call call, Outcome outcome) {
+        lock.lock();
+        try {
+            if (outcome == Outcome.SUCCESS) {
+                successes++;
+            } else if (outcome == Outcome.FAILURE) {
+                failures++;
+            }
+            if (call.generation != generation) {
+                return;
+            }
+            if (call.probe) {
+                probesInflight--;
+                if (outcome == Outcome.FAILURE) {
+                    open();
+                } else if (outcome == Outcome.SUCCESS && ++probeSuccesses >= halfOpenProbes) {
+                    transition(State.CLOSED);
+                }
+            } else if (outcome != Outcome.IGNORED) {
+                record(outcome == Outcome.FAILURE);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowNext]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+        if (enabled && windowCount >= minCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        if (!enabled) {
+            return;
+        }
+        opened++;
+        openedAtNanos = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        state = next;
+        generation++;
+        probesInflight = 0;
+        probeSuccesses = 0;
+        windowCount = 0;
+        windowNext = 0;
+        windowFailures = 0;
+    }
+
+    public Map<String, Object> stats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("state", state.name());
+            stats.put("enabled", enabled);
+            stats.put("windowCalls", windowCount);
+            stats.put("windowFailureRate", windowCount > 0 ? (double) windowFailures / windowCount : 0.0);
+            stats.put("successes", successes);
+            stats.put("failures", failures);
+            stats.put("rejected", rejected);
+            stats.put("opened", opened);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum Outcome { SUCCESS, FAILURE, IGNORED }
+
+    /**
+     * One admitted call. Report {@link #onSuccess()} or {@link #onFailure()}; closing without an outcome records
+     * nothing (e.g. the call was cancelled or failed for reasons that say nothing about the downstream's health).
+     */
+    public final class Call implements AutoCloseable {
+        private final long generation;
+        private final boolean probe;
+        private boolean finished;
+
+        private Call(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+
+        public void onSuccess() {
+            complete(Outcome.SUCCESS);
+        }
+
+        public void onFailure() {
+            complete(Outcome.FAILURE);
+        }
+
+        @Override
+        public void close() {
+            complete(Outcome.IGNORED);
+        }
+
+        private void complete(Outcome outcome) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            finish(this, outcome);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Circuit breakers for the downstreams a job depends on: Azure analyze, MCP extract, MCP resolve and the dealer
+ * portal. All share the {@code ocr.circuit-breaker.*} settings.
+ */
+@Component
+public class CircuitBreakers implements StatsProvider {
+
+    private final CircuitBreaker azureAnalyze;
+    private final CircuitBreaker mcpExtract;
+    private final CircuitBreaker mcpResolve;
+    private final CircuitBreaker dealerPortal;
+
+    public CircuitBreakers(
+            @Value("${ocr.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${ocr.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${ocr.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${ocr.circuit-breaker.min-calls:5}") int minCalls,
+            @Value("${ocr.circuit-breaker.open-ms:30000}") long openMs,
+            @Value("${ocr.circuit-breaker.half-open-probes:2}") int halfOpenProbes) {
+        this.azureAnalyze = new CircuitBreaker("azure-analyze", enabled, failureRateThreshold, windowSize, minCalls,
+                openMs, halfOpenProbes);
+        this.mcpExtract = new CircuitBreaker("mcp-extract", enabled, failureRateThreshold, windowSize, minCalls,
+                openMs, halfOpenProbes);
+        this.mcpResolve = new CircuitBreaker("mcp-resolve", enabled, failureRateThreshold, windowSize, minCalls,
+                openMs, halfOpenProbes);
+        this.dealerPortal = new CircuitBreaker("dealer-portal", enabled, failureRateThreshold, windowSize, minCalls,
+                openMs, halfOpenProbes);
+    }
+
+    public CircuitBreaker azureAnalyze() {
+        return azureAnalyze;
+    }
+
+    public CircuitBreaker mcpExtract() {
+        return mcpExtract;
+    }
+
+    public CircuitBreaker mcpResolve() {
+        return mcpResolve;
+    }
+
+    public CircuitBreaker dealerPortal() {
+        return dealerPortal;
+    }
+
+    /**
+     * True when the error chain shows the downstream could not be reached or did not answer in time
+     * (connect failure, unknown host, no route, socket or future timeout).
+     */
+    public static boolean isOutage(Throwable error) {
+        Throwable cause = error;
+        while (cause != null) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException
+                    || cause instanceof NoRouteToHostException || cause instanceof SocketTimeoutException
+                    || cause instanceof TimeoutException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    @Override
+    public String statsName() {
+        return "circuitBreakers";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(azureAnalyze.name(), azureAnalyze.stats());
+        stats.put(mcpExtract.name(), mcpExtract.stats());
+        stats.put(mcpResolve.name(), mcpResolve.stats());
+        stats.put(dealerPortal.name(), dealerPortal.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,187 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.context.CallCancellation;
+import com.novae.ocr.util.BlockingExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow calls: the primary runs on the caller's thread and, if it has not returned after the configured
+ * percentile of recent latency, a duplicate is started on a background thread. The first success wins and the
+ * other attempt's HTTP request is aborted via {@link CallCancellation}.
+ * <p>
+ * Hedges are limited by a token budget (each call earns {@code budgetRatio} tokens, each hedge spends one), and
+ * are skipped while {@code saturated} reports the downstream as saturated, so hedging cannot amplify overload.
+ */
+public class HedgedCall {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgedCall.class);
+    private static final int MIN_SAMPLES = 20;
+    private static final double MAX_TOKENS = 10.0;
+
+    private final String name;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final BooleanSupplier saturated;
+    private final LatencyTracker latencies = new LatencyTracker(256);
+    private final ScheduledExecutorService timer;
+    private final ExecutorService hedgeExecutor;
+    private final ReentrantLock budgetLock = new ReentrantLock();
+    private double tokens;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesDenied = new AtomicLong();
+
+    public HedgedCall(String name, double percentile, long minDelayMs, double budgetRatio, BooleanSupplier saturated,
+                      boolean virtualThreads) {
+        this.name = name;
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, minDelayMs));
+        this.budgetRatio = Math.max(0.0, budgetRatio);
+        this.saturated = saturated;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name + "-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Hedges are rare (bounded by the budget) and wait on I/O.
+        this.hedgeExecutor = BlockingExecutors.unbounded(name + "-hedge", virtualThreads);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        calls.incrementAndGet();
+        earnToken();
+        long startNs = System.nanoTime();
+        long delayNanos = hedgeDelayNanos();
+        if (delayNanos < 0) {
+            T result = call.get();
+            latencies.record(System.nanoTime() - startNs);
+            return result;
+        }
+        CallCancellation primaryScope = new CallCancellation();
+        AtomicReference<CallCancellation> hedgeScope = new AtomicReference<>();
+        CompletableFuture<T> hedge = new CompletableFuture<>();
+        ScheduledFuture<?> hedgeTimer = timer.schedule(
+                () -> startHedge(call, hedge, hedgeScope, primaryScope), delayNanos, TimeUnit.NANOSECONDS);
+        try {
+            T result = primaryScope.callWithin(call);
+            hedgeTimer.cancel(false);
+            // Either this sees the hedge's scope or startHedge sees the cancelled future.
+            hedge.cancel(false);
+            cancel(hedgeScope.get());
+            latencies.record(System.nanoTime() - startNs);
+            return result;
+        } catch (RuntimeException primaryFailure) {
+            hedgeTimer.cancel(false);
+            if (hedgeScope.get() == null) {
+                throw primaryFailure;
+            }
+            try {
+                T result = hedge.join();
+                hedgeWins.incrementAndGet();
+                latencies.record(System.nanoTime() - startNs);
+                return result;
+            } catch (CompletionException hedgeFailure) {
+                throw primaryFailure;
+            }
+        }
+    }
+
+    private <T> void startHedge(Supplier<T> call, CompletableFuture<T> hedge,
+                                AtomicReference<CallCancellation> hedgeScope, CallCancellation primaryScope) {
+        if (saturated.getAsBoolean() || !spendToken()) {
+            hedgesDenied.incrementAndGet();
+            return;
+        }
+        hedges.incrementAndGet();
+        CallCancellation scope = new CallCancellation();
+        hedgeScope.set(scope);
+        if (hedge.isDone()) {
+            scope.cancel();
+            return;
+        }
+        log.info("{} call slower than p{}; starting hedge", name, Math.round(percentile * 100));
+        hedgeExecutor.execute(() -> {
+            try {
+                T result = scope.callWithin(call);
+                if (hedge.complete(result)) {
+                    // Unblocks the caller: its primary request fails and it picks up this result.
+                    primaryScope.cancel();
+                }
+            } catch (RuntimeException e) {
+                hedge.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * @return hedge delay, or -1 when there are too few samples to estimate the tail
+     */
+    private long hedgeDelayNanos() {
+        if (latencies.size() < MIN_SAMPLES) {
+            return -1L;
+        }
+        return Math.max(minDelayNanos, latencies.percentileNanos(percentile));
+    }
+
+    private void earnToken() {
+        budgetLock.lock();
+        try {
+            tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    private boolean spendToken() {
+        budgetLock.lock();
+        try {
+            if (tokens < 1.0) {
+                return false;
+            }
+            tokens -= 1.0;
+            return true;
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    private static void cancel(CallCancellation scope) {
+        if (scope != null) {
+            scope.cancel();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long delayNanos = hedgeDelayNanos();
+        stats.put("calls", calls.get());
+        stats.put("hedges", hedges.get());
+        stats.put("hedgeWins", hedgeWins.get());
+        stats.put("hedgesDenied", hedgesDenied.get());
+        stats.put("hedgeDelayMs", delayNanos < 0 ? null : TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        return stats;
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        hedgeExecutor.shutdown();
+    }
+}
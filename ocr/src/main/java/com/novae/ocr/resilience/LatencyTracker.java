@@ -0,0 +1,59 @@
+package com.novae.ocr.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sliding window of the most recent latencies for percentile estimates.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int next;
+    private int size;
+
+    public LatencyTracker(int windowSize) {
+        this.samples = new long[Math.max(1, windowSize)];
+    }
+
+    public void record(long latencyNanos) {
+        lock.lock();
+        try {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return latency at the percentile, or -1 with no samples
+     */
+    public long percentileNanos(double percentile) {
+        long[] copy;
+        lock.lock();
+        try {
+            if (size == 0) {
+                return -1L;
+            }
+            copy = Arrays.copyOf(samples, size);
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * copy.length) - 1;
+        return copy[Math.max(0, index)];
+    }
+}
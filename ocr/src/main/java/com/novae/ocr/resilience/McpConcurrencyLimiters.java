@@ -0,0 +1,55 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adaptive concurrency limits for the MCP extract and resolve endpoints.
+ */
+@Component
+public class McpConcurrencyLimiters implements StatsProvider {
+
+    private final AdaptiveConcurrencyLimiter extract;
+    private final AdaptiveConcurrencyLimiter resolve;
+
+    public McpConcurrencyLimiters(
+            @Value("${ocr.extract.limiter.initial-limit:2}") int extractInitial,
+            @Value("${ocr.extract.limiter.min-limit:1}") int extractMin,
+            @Value("${ocr.extract.limiter.max-limit:8}") int extractMax,
+            @Value("${ocr.extract.limiter.max-wait-ms:120000}") long extractMaxWaitMs,
+            @Value("${ocr.resolve.max-inflight-requests:1}") int resolveInitial,
+            @Value("${ocr.resolve.limiter.min-limit:1}") int resolveMin,
+            @Value("${ocr.resolve.limiter.max-limit:8}") int resolveMax,
+            @Value("${ocr.resolve.limiter.max-wait-ms:120000}") long resolveMaxWaitMs,
+            @Value("${ocr.priority.aging-ms:10000}") long priorityAgingMs) {
+        this.extract = new AdaptiveConcurrencyLimiter("mcp-extract", extractInitial, extractMin, extractMax,
+                extractMaxWaitMs, priorityAgingMs);
+        this.resolve = new AdaptiveConcurrencyLimiter("mcp-resolve", resolveInitial, resolveMin, resolveMax,
+                resolveMaxWaitMs, priorityAgingMs);
+    }
+
+    public AdaptiveConcurrencyLimiter extract() {
+        return extract;
+    }
+
+    public AdaptiveConcurrencyLimiter resolve() {
+        return resolve;
+    }
+
+    @Override
+    public String statsName() {
+        return "mcpConcurrency";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(extract.name(), extract.stats());
+        stats.put(resolve.name(), resolve.stats());
+        return stats;
+    }
+}
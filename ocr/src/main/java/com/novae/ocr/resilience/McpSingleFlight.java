@@ -0,0 +1,47 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.dto.ExtractedQuote;
+import com.novae.ocr.dto.ResolutionResult;
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.util.HashUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Single-flight groups for MCP extract and resolve, keyed by a hash of endpoint, authorization and payload so
+ * identical requests from different callers never share a result.
+ */
+@Component
+public class McpSingleFlight implements StatsProvider {
+
+    private final SingleFlight<String, ExtractedQuote> extract = new SingleFlight<>("mcp-extract", ExtractedQuote::copy);
+    private final SingleFlight<String, ResolutionResult> resolve =
+            new SingleFlight<>("mcp-resolve", ResolutionResult::copy);
+
+    public SingleFlight<String, ExtractedQuote> extract() {
+        return extract;
+    }
+
+    public SingleFlight<String, ResolutionResult> resolve() {
+        return resolve;
+    }
+
+    public static String key(String endpoint, String authorization, String payload) {
+        return HashUtils.sha256Hex(endpoint + "\n" + (authorization != null ? authorization : "") + "\n" + payload);
+    }
+
+    @Override
+    public String statsName() {
+        return "mcpSingleFlight";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(extract.name(), extract.stats());
+        stats.put(resolve.name(), resolve.stats());
+        return stats;
+    }
+}
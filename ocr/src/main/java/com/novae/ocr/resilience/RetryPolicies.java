@@ -0,0 +1,79 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.metrics.StatsProvider;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Retry policies for Azure analyze, MCP extract and MCP resolve ({@code ocr.retry.<downstream>.*}), sharing one
+ * retry budget ratio.
+ */
+@Component
+public class RetryPolicies implements StatsProvider {
+
+    private final ScheduledExecutorService scheduler;
+    private final RetryPolicy azureAnalyze;
+    private final RetryPolicy mcpExtract;
+    private final RetryPolicy mcpResolve;
+
+    public RetryPolicies(
+            @Value("${ocr.retry.budget-ratio:0.1}") double budgetRatio,
+            @Value("${ocr.retry.azure.max-attempts:3}") int azureMaxAttempts,
+            @Value("${ocr.retry.azure.base-delay-ms:1000}") long azureBaseDelayMs,
+            @Value("${ocr.retry.azure.max-delay-ms:20000}") long azureMaxDelayMs,
+            @Value("${ocr.retry.extract.max-attempts:2}") int extractMaxAttempts,
+            @Value("${ocr.retry.extract.base-delay-ms:250}") long extractBaseDelayMs,
+            @Value("${ocr.retry.extract.max-delay-ms:5000}") long extractMaxDelayMs,
+            @Value("${ocr.retry.resolve.max-attempts:2}") int resolveMaxAttempts,
+            @Value("${ocr.retry.resolve.base-delay-ms:250}") long resolveBaseDelayMs,
+            @Value("${ocr.retry.resolve.max-delay-ms:5000}") long resolveMaxDelayMs) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "retry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.azureAnalyze = new RetryPolicy("azure-analyze", azureMaxAttempts, azureBaseDelayMs, azureMaxDelayMs,
+                budgetRatio, scheduler);
+        this.mcpExtract = new RetryPolicy("mcp-extract", extractMaxAttempts, extractBaseDelayMs, extractMaxDelayMs,
+                budgetRatio, scheduler);
+        this.mcpResolve = new RetryPolicy("mcp-resolve", resolveMaxAttempts, resolveBaseDelayMs, resolveMaxDelayMs,
+                budgetRatio, scheduler);
+    }
+
+    public RetryPolicy azureAnalyze() {
+        return azureAnalyze;
+    }
+
+    public RetryPolicy mcpExtract() {
+        return mcpExtract;
+    }
+
+    public RetryPolicy mcpResolve() {
+        return mcpResolve;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String statsName() {
+        return "retry";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(azureAnalyze.name(), azureAnalyze.stats());
+        stats.put(mcpExtract.name(), mcpExtract.stats());
+        stats.put(mcpResolve.name(), mcpResolve.stats());
+        return stats;
+    }
+}
@@ -0,0 +1,237 @@
+package com.novae.ocr.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Retries transient failures of one downstream with exponential backoff and full jitter.
+ * <p>
+ * Attempt {@code n} waits a random time up to {@code min(maxDelay, baseDelay * 2^(n-1))}, or the delay the
+ * downstream asked for via {@code Retry-After} when that is longer. A retry is skipped when the wait would not fit
+ * in the caller's remaining time. Retries are limited by a budget: each call earns {@code budgetRatio} tokens and
+ * each retry spends one, so retry traffic stays below that fraction of normal traffic.
+ */
+public class RetryPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryPolicy.class);
+    private static final double MAX_TOKENS = 10.0;
+
+    /**
+     * Decides which failures of a downstream are transient.
+     */
+    public interface Classifier {
+
+        boolean isRetryable(Throwable error);
+
+        /**
+         * Delay requested by the downstream (e.g. {@code Retry-After}), or -1 when there is none.
+         */
+        default long retryAfterMs(Throwable error) {
+            return -1L;
+        }
+    }
+
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final double budgetRatio;
+    private final ScheduledExecutorService scheduler;
+    private final ReentrantLock budgetLock = new ReentrantLock();
+    private double tokens = MAX_TOKENS;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong retryAfterHonoured = new AtomicLong();
+    private final AtomicLong deniedByBudget = new AtomicLong();
+    private final AtomicLong deniedByDeadline = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    /**
+     * @param scheduler runs delayed attempts of {@link #executeAsync}
+     */
+    public RetryPolicy(String name, int maxAttempts, long baseDelayMs, long maxDelayMs, double budgetRatio,
+                       ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = Math.max(1L, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+        this.budgetRatio = Math.max(0.0, budgetRatio);
+        this.scheduler = scheduler;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Runs {@code call} on the calling thread, sleeping between attempts.
+     *
+     * @param remainingNanos time the caller has left (e.g. its job deadline)
+     */
+    public <T> T execute(Supplier<T> call, Classifier classifier, LongSupplier remainingNanos) {
+        onCall();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                long delayMs = nextDelayMs(attempt, e, classifier, remainingNanos.getAsLong());
+                if (delayMs < 0) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Like {@link #execute} for calls that return a future; delayed attempts are scheduled, never slept. Once the
+     * returned future is done (e.g. cancelled by the caller) no further attempt is scheduled or started.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call, Classifier classifier,
+                                                 LongSupplier remainingNanos) {
+        onCall();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(call, classifier, remainingNanos, 1, result);
+        return result;
+    }
+
+    private <T> void attemptAsync(Supplier<CompletableFuture<T>> call, Classifier classifier,
+                                  LongSupplier remainingNanos, int attempt, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<T> running;
+        try {
+            running = call.get();
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        running.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (result.isDone()) {
+                return;
+            }
+            long delayMs = nextDelayMs(attempt, cause, classifier, remainingNanos.getAsLong());
+            if (delayMs < 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            scheduler.schedule(() -> attemptAsync(call, classifier, remainingNanos, attempt + 1, result),
+                    delayMs, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * @return delay before the next attempt, or -1 to give up
+     */
+    private long nextDelayMs(int attempt, Throwable error, Classifier classifier, long remainingNanos) {
+        if (!classifier.isRetryable(error)) {
+            return -1L;
+        }
+        if (attempt >= maxAttempts) {
+            exhausted.incrementAndGet();
+            return -1L;
+        }
+        long ceilingMs = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        long delayMs = ThreadLocalRandom.current().nextLong(ceilingMs + 1);
+        long retryAfterMs = classifier.retryAfterMs(error);
+        if (retryAfterMs > delayMs) {
+            delayMs = retryAfterMs;
+            retryAfterHonoured.incrementAndGet();
+        }
+        if (TimeUnit.MILLISECONDS.toNanos(delayMs) >= remainingNanos) {
+            deniedByDeadline.incrementAndGet();
+            return -1L;
+        }
+        if (!spendToken()) {
+            deniedByBudget.incrementAndGet();
+            return -1L;
+        }
+        retries.incrementAndGet();
+        log.warn("{} attempt {} failed ({}); retrying in {} ms", name, attempt, error.getMessage(), delayMs);
+        return delayMs;
+    }
+
+    private void onCall() {
+        calls.incrementAndGet();
+        budgetLock.lock();
+        try {
+            tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    private boolean spendToken() {
+        budgetLock.lock();
+        try {
+            if (tokens < 1.0) {
+                return false;
+            }
+            tokens -= 1.0;
+            return true;
+        } finally {
+            budgetLock.unlock();
+        }
+    }
+
+    /**
+     * Parses a {@code Retry-After} header value (delta seconds or HTTP date) into milliseconds; -1 if absent or
+     * malformed.
+     */
+    public static long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return -1L;
+        }
+        String trimmed = value.trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0L, Long.parseLong(trimmed)));
+        } catch (NumberFormatException ignored) {
+            // Not delta seconds; try an HTTP date.
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0L, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1L;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxAttempts", maxAttempts);
+        stats.put("calls", calls.get());
+        stats.put("retries", retries.get());
+        stats.put("retryAfterHonoured", retryAfterHonoured.get());
+        stats.put("deniedByBudget", deniedByBudget.get());
+        stats.put("deniedByDeadline", deniedByDeadline.get());
+        stats.put("exhausted", exhausted.get());
+        return stats;
+    }
+}
@@ -0,0 +1,168 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.exception.DeadlineExceededException;
+import com.novae.ocr.exception.OcrProcessingException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls with the same key into one in-flight call.
+ * <p>
+ * The first caller (leader) runs the call on its own thread; callers arriving while it runs (followers) wait on a
+ * future derived from the leader's. Every caller, the leader included, receives its own copy of the result, or the
+ * shared exception. A follower that is interrupted cancels only its derived future, never the shared call.
+ * Nothing is kept once the call completes.
+ * <p>
+ * The shared call runs under the leader's deadline. When it fails because that deadline ran out, followers with time
+ * left do not take the failure as their own: one of them becomes the new leader and runs the call again.
+ */
+public class SingleFlight<K, V> {
+
+    /** Response timeouts are capped at the remaining budget in whole milliseconds, so may fire just before it. */
+    private static final long DEADLINE_TOLERANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final String name;
+    private final UnaryOperator<V> copier;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inflight = new ConcurrentHashMap<>();
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong followers = new AtomicLong();
+    private final AtomicLong cancelledFollowers = new AtomicLong();
+    private final AtomicLong rerunsAfterLeaderDeadline = new AtomicLong();
+
+    /**
+     * @param copier applied to the shared result for each follower so callers never share mutable state
+     */
+    public SingleFlight(String name, UnaryOperator<V> copier) {
+        this.name = name;
+        this.copier = copier;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        return execute(key, call, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #execute(Object, Supplier)}; a follower stops waiting after {@code maxWaitNanos} with a
+     * {@link DeadlineExceededException} while the shared call carries on. {@code maxWaitNanos} is also the caller's
+     * deadline when it leads.
+     */
+    public V execute(K key, Supplier<V> call, long maxWaitNanos) {
+        long deadlineNanos = maxWaitNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + maxWaitNanos;
+        while (true) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> existing = inflight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, call, deadlineNanos);
+            }
+            followers.incrementAndGet();
+            try {
+                return follow(existing, remainingNanos(deadlineNanos));
+            } catch (LeaderDeadlineExceeded e) {
+                if (remainingNanos(deadlineNanos) <= 0L) {
+                    throw e.failure;
+                }
+                rerunsAfterLeaderDeadline.incrementAndGet();
+            }
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> call, long deadlineNanos) {
+        leaders.incrementAndGet();
+        try {
+            V result = call.get();
+            flight.complete(result);
+            // Late followers copy the shared value at any time, so the leader must not mutate it either.
+            return result != null ? copier.apply(result) : null;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(causedByDeadline(e, deadlineNanos) ? new LeaderDeadlineExceeded(e) : e);
+            throw e;
+        } catch (Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Deadline failures surface as {@link DeadlineExceededException} (limiter wait) or as a response timeout capped
+     * at the remaining budget, which fires at the deadline; either way the leader's time is up.
+     */
+    private static boolean causedByDeadline(RuntimeException failure, long deadlineNanos) {
+        return failure instanceof DeadlineExceededException
+                || (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= -DEADLINE_TOLERANCE_NANOS);
+    }
+
+    private static long remainingNanos(long deadlineNanos) {
+        return deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE : deadlineNanos - System.nanoTime();
+    }
+
+    private V follow(CompletableFuture<V> flight, long maxWaitNanos) {
+        if (maxWaitNanos <= 0L) {
+            cancelledFollowers.incrementAndGet();
+            throw new DeadlineExceededException(name);
+        }
+        CompletableFuture<V> derived = flight.thenApply(value -> value != null ? copier.apply(value) : null);
+        try {
+            return maxWaitNanos == Long.MAX_VALUE ? derived.get() : derived.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            derived.cancel(false);
+            cancelledFollowers.incrementAndGet();
+            throw new DeadlineExceededException(name);
+        } catch (InterruptedException e) {
+            derived.cancel(false);
+            cancelledFollowers.incrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new OcrProcessingException("Cancelled while waiting for in-flight " + name + " call", e);
+        } catch (CancellationException e) {
+            cancelledFollowers.incrementAndGet();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new OcrProcessingException("In-flight " + name + " call failed", cause);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inflight", inflight.size());
+        stats.put("leaders", leaders.get());
+        stats.put("coalesced", followers.get());
+        stats.put("cancelledFollowers", cancelledFollowers.get());
+        stats.put("rerunsAfterLeaderDeadline", rerunsAfterLeaderDeadline.get());
+        return stats;
+    }
+
+    /**
+     * Shared failure that only means the leader ran out of time; carries the leader's own exception.
+     */
+    private static final class LeaderDeadlineExceeded extends RuntimeException {
+
+        private final RuntimeException failure;
+
+        private LeaderDeadlineExceeded(RuntimeException failure) {
+            super(failure.getMessage(), failure, false, false);
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.novae.ocr.service;
+
+import com.novae.ocr.dto.AsyncJob;
+import com.novae.ocr.dto.OcrQuoteDTO;
+
+import java.util.Optional;
+
+/**
+ * Registry of async upload jobs with TTL and size-bounded retention of finished results.
+ */
+public interface AsyncJobStore {
+
+    /**
+     * Register a new job in PROCESSING state.
+     *
+     * @return generated job id
+     */
+    String register();
+
+    /**
+     * Mark job as completed with its result.
+     */
+    void complete(String jobId, OcrQuoteDTO result);
+
+    /**
+     * Mark job as failed with an error message.
+     */
+    void fail(String jobId, String error);
+
+    /**
+     * Look up a job in memory or, if it was evicted, in the disk tier.
+     *
+     * @return job snapshot, or empty if unknown or expired
+     */
+    Optional<AsyncJob> find(String jobId);
+}
@@ -1,10 +1,14 @@
 package com.novae.ocr.service;
 
+import com.novae.ocr.context.Priority;
 import org.springframework.lang.Nullable;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
 
 /**
  * Extracts text from PDF using Azure Document Intelligence.
@@ -28,6 +32,15 @@ public interface AzureOcrService {
      */
     String extractText(InputStream inputStream, @Nullable String fileName);
 
+    /**
+     * Extract OCR text from a PDF on local disk; the file is streamed to Azure, not loaded into heap.
+     *
+     * @param pdfFile  PDF file (e.g. spooled upload)
+     * @param fileName optional file name for logging
+     * @return extracted text, or empty if OCR client not configured
+     */
+    String extractText(Path pdfFile, @Nullable String fileName);
+
     /**
      * Extract OCR text per page for chunked processing (e.g. multi-quote PDFs).
      *
@@ -36,4 +49,40 @@ public interface AzureOcrService {
      * @return list of page texts (one per page), or empty if OCR not configured
      */
     List<String> extractTextByPages(InputStream inputStream, @Nullable String fileName);
+
+    /**
+     * Extract OCR text per page from a PDF on local disk.
+     *
+     * @param pdfFile  PDF file (e.g. spooled upload)
+     * @param fileName optional file name for logging
+     * @return list of page texts (one per page), or empty if OCR not configured
+     */
+    List<String> extractTextByPages(Path pdfFile, @Nullable String fileName);
+
+    /**
+     * Extract OCR text per page without blocking the caller.
+     *
+     * @param pdfFile        PDF file (e.g. spooled upload)
+     * @param fileName       optional file name for logging
+     * @param priority       order among analyses waiting for {@code ocr.azure.max-inflight-analyses}
+     * @param remainingNanos time the caller has left; retries that would not fit are skipped
+     * @return future completing with page texts (empty if OCR client not configured); completing or cancelling it
+     * early stops queued analyses and retries
+     */
+    CompletableFuture<List<String>> extractTextByPagesAsync(Path pdfFile, @Nullable String fileName,
+                                                            Priority priority, LongSupplier remainingNanos);
+
+    /**
+     * Extract OCR text without blocking the caller; the Azure poll runs on the SDK's event loop.
+     *
+     * @param pdfFile        PDF file (e.g. spooled upload)
+     * @param fileName       optional file name for logging
+     * @param priority       order among analyses waiting for {@code ocr.azure.max-inflight-analyses}
+     * @param remainingNanos time the caller has left; retries that would not fit are skipped
+     * @return future completing with extracted text (empty if OCR client not configured),
+     * or exceptionally with {@link com.novae.ocr.exception.OcrProcessingException}; completing or cancelling it
+     * early stops queued analyses and retries
+     */
+    CompletableFuture<String> extractTextAsync(Path pdfFile, @Nullable String fileName, Priority priority,
+                                               LongSupplier remainingNanos);
 }
@@ -0,0 +1,22 @@
+package com.novae.ocr.service;
+
+import java.util.List;
+
+/**
+ * Shrinks OCR output before it is sent to the LLM extract endpoint.
+ */
+public interface OcrTextCompactor {
+
+    /**
+     * False when {@code ocr.compaction.enabled} is off; {@link #compact(List)} then returns the pages unchanged.
+     */
+    boolean isEnabled();
+
+    /**
+     * Strip headers and footers repeated across pages, drop boilerplate pages and collapse whitespace.
+     *
+     * @param pages OCR text per page, in page order
+     * @return remaining pages in page order
+     */
+    List<String> compact(List<String> pages);
+}
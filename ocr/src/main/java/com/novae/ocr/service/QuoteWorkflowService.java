@@ -1,8 +1,12 @@
 package com.novae.ocr.service;
 
+import com.novae.ocr.context.Priority;
 import com.novae.ocr.dto.OcrQuoteDTO;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Orchestrates PDF → OCR → Extract → Resolve → Validate → OcrQuoteDTO.
  */
@@ -23,6 +27,23 @@ public interface QuoteWorkflowService {
      */
     OcrQuoteDTO processPdfBytes(byte[] fileBytes, String fileName, String authorizationHeader);
 
+    /**
+     * Process PDF on local disk (e.g. spooled upload) using explicit auth header; the file is not loaded into heap.
+     */
+    OcrQuoteDTO processPdfFile(Path pdfFile, String fileName, String authorizationHeader);
+
+    /**
+     * Process PDF on local disk without holding a thread during Azure OCR. The job runs on the pipeline stages when
+     * {@code ocr.stages.enabled}, otherwise start to finish in one slot of the async stage
+     * ({@code ocr.async.parallelism}). Fails with {@link com.novae.ocr.exception.StageOverloadedException} when the
+     * OCR stage is full.
+     *
+     * @param priority scheduling class in the stages, the Azure analysis queue and the MCP limiters (other methods
+     *                 run as {@link Priority#INTERACTIVE})
+     */
+    CompletableFuture<OcrQuoteDTO> processPdfFileAsync(
+            Path pdfFile, String fileName, String authorizationHeader, Priority priority);
+
     /**
      * Process PDF from file path (e.g. for testing or batch).
      */
@@ -0,0 +1,35 @@
+package com.novae.ocr.service;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Streams uploaded PDFs to a local spool directory so queued jobs hold a path instead of the bytes.
+ */
+public interface UploadSpoolService {
+
+    /**
+     * Stream multipart upload to a new spool file.
+     *
+     * @param file uploaded PDF
+     * @return path of the spool file; caller must {@link #release(Path)} it
+     */
+    Path spool(MultipartFile file);
+
+    /**
+     * Stream PDF content to a new spool file.
+     *
+     * @param inputStream PDF content
+     * @param fileName    optional file name for logging
+     * @return path of the spool file; caller must {@link #release(Path)} it
+     */
+    Path spool(InputStream inputStream, @Nullable String fileName);
+
+    /**
+     * Delete a spool file once processing finished; null and missing files are ignored.
+     */
+    void release(@Nullable Path spoolFile);
+}
@@ -0,0 +1,464 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.dto.AsyncJob;
+import com.novae.ocr.dto.AsyncJobStatus;
+import com.novae.ocr.dto.OcrOptionDTO;
+import com.novae.ocr.dto.OcrQuoteDTO;
+import com.novae.ocr.dto.OcrQuoteLineDTO;
+import com.novae.ocr.dto.ProductSuggestion;
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.service.AsyncJobStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class AsyncJobStoreImpl implements AsyncJobStore, StatsProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncJobStoreImpl.class);
+    private static final String SPILL_SUFFIX = ".json";
+    /** Rough per-entry overhead (map node, entry object, id string) added to the estimated result size. */
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+    /** Rough overhead of one DTO object (header, references, boxed fields) in the size estimate. */
+    private static final long OBJECT_OVERHEAD_BYTES = 64;
+
+    private final JsonMapper jsonMapper;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long maxResultBytes;
+    private final long spillMaxBytes;
+    private final Path spillDir;
+
+    /** Guards {@link #memory}, {@link #disk} and the byte counters. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Insertion order doubles as eviction order: oldest submitted jobs go first. */
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>();
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>();
+    private long memoryBytes;
+    private long diskBytes;
+
+    private final AtomicLong ttlEvictions = new AtomicLong();
+    private final AtomicLong sizeEvictions = new AtomicLong();
+    private final AtomicLong spills = new AtomicLong();
+    private final AtomicLong spillFailures = new AtomicLong();
+    private final AtomicLong diskReads = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+    private final ScheduledExecutorService sweeper;
+
+    public AsyncJobStoreImpl(
+            JsonMapper jsonMapper,
+            @Value("${ocr.async.jobs.ttl-minutes:60}") long ttlMinutes,
+            @Value("${ocr.async.jobs.max-entries:500}") int maxEntries,
+            @Value("${ocr.async.jobs.max-result-bytes:67108864}") long maxResultBytes,
+            @Value("${ocr.async.jobs.spill-dir:}") String spillDir,
+            @Value("${ocr.async.jobs.spill-max-bytes:536870912}") long spillMaxBytes,
+            @Value("${ocr.async.jobs.sweep-interval-seconds:30}") long sweepIntervalSeconds) {
+        this.jsonMapper = jsonMapper;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(Math.max(1, ttlMinutes));
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxResultBytes = Math.max(1, maxResultBytes);
+        this.spillMaxBytes = spillMaxBytes;
+        this.spillDir = initSpillDir(spillDir);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "async-job-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, sweepIntervalSeconds);
+        this.sweeper.scheduleWithFixedDelay(this::sweepExpired, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdownSweeper() {
+        sweeper.shutdown();
+    }
+
+    @Override
+    public String register() {
+        String jobId = UUID.randomUUID().toString();
+        lock.lock();
+        try {
+            MemoryEntry entry = new MemoryEntry(jobId);
+            memory.put(jobId, entry);
+            memoryBytes += entry.bytes;
+        } finally {
+            lock.unlock();
+        }
+        return jobId;
+    }
+
+    @Override
+    public void complete(String jobId, OcrQuoteDTO result) {
+        finish(jobId, AsyncJobStatus.COMPLETED, result, null);
+    }
+
+    @Override
+    public void fail(String jobId, String error) {
+        finish(jobId, AsyncJobStatus.FAILED, null, error);
+    }
+
+    @Override
+    public Optional<AsyncJob> find(String jobId) {
+        if (jobId == null) {
+            return Optional.empty();
+        }
+        DiskEntry diskEntry;
+        lock.lock();
+        try {
+            MemoryEntry entry = memory.get(jobId);
+            if (entry != null) {
+                return Optional.of(entry.toJob());
+            }
+            diskEntry = disk.get(jobId);
+            if (diskEntry == null) {
+                return Optional.empty();
+            }
+            if (diskEntry.pending != null) {
+                return Optional.of(diskEntry.pending);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (isExpired(diskEntry.completedAtMillis, System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        try {
+            AsyncJob job = jsonMapper.readValue(Files.readAllBytes(diskEntry.path), AsyncJob.class);
+            diskReads.incrementAndGet();
+            return Optional.of(job);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read spilled async job jobId={} path={}", jobId, diskEntry.path, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "asyncJobs";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            long processing = memory.values().stream()
+                    .filter(e -> e.status == AsyncJobStatus.PROCESSING)
+                    .count();
+            stats.put("memoryEntries", memory.size());
+            stats.put("processing", processing);
+            stats.put("memoryBytes", memoryBytes);
+            stats.put("diskEntries", disk.size());
+            stats.put("diskBytes", diskBytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxResultBytes", maxResultBytes);
+        stats.put("spillEnabled", spillDir != null);
+        stats.put("spillMaxBytes", spillMaxBytes);
+        stats.put("ttlEvictions", ttlEvictions.get());
+        stats.put("sizeEvictions", sizeEvictions.get());
+        stats.put("spills", spills.get());
+        stats.put("spillFailures", spillFailures.get());
+        stats.put("diskReads", diskReads.get());
+        stats.put("diskEvictions", diskEvictions.get());
+        return stats;
+    }
+
+    private void finish(String jobId, AsyncJobStatus status, OcrQuoteDTO result, String error) {
+        AsyncJob job = new AsyncJob(jobId, status, result, error);
+        long bytes = estimateBytes(job);
+        List<AsyncJob> victims;
+        lock.lock();
+        try {
+            MemoryEntry entry = memory.get(jobId);
+            if (entry == null) {
+                // Processing jobs are never evicted, so this only happens for ids not issued by register().
+                entry = new MemoryEntry(jobId);
+                memory.put(jobId, entry);
+                memoryBytes += entry.bytes;
+            }
+            memoryBytes -= entry.bytes;
+            entry.status = status;
+            entry.result = result;
+            entry.error = error;
+            entry.bytes = bytes;
+            entry.completedAtMillis = System.currentTimeMillis();
+            memoryBytes += bytes;
+            victims = evictOverLimitLocked();
+        } finally {
+            lock.unlock();
+        }
+        spill(victims);
+    }
+
+    /**
+     * Removes oldest finished jobs until count and byte limits hold. Jobs still processing are never evicted.
+     * Evicted jobs are parked in {@link #disk} with their snapshot pending until the spill file is written.
+     */
+    private List<AsyncJob> evictOverLimitLocked() {
+        List<AsyncJob> victims = new ArrayList<>();
+        Iterator<MemoryEntry> it = memory.values().iterator();
+        while ((memory.size() > maxEntries || memoryBytes > maxResultBytes) && it.hasNext()) {
+            MemoryEntry entry = it.next();
+            if (entry.status == AsyncJobStatus.PROCESSING) {
+                continue;
+            }
+            it.remove();
+            memoryBytes -= entry.bytes;
+            sizeEvictions.incrementAndGet();
+            if (spillDir != null) {
+                AsyncJob job = entry.toJob();
+                disk.put(entry.jobId, new DiskEntry(spillDir.resolve(entry.jobId + SPILL_SUFFIX),
+                        entry.completedAtMillis, job));
+                victims.add(job);
+            }
+        }
+        return victims;
+    }
+
+    private void spill(List<AsyncJob> victims) {
+        for (AsyncJob job : victims) {
+            Path path = spillDir.resolve(job.getJobId() + SPILL_SUFFIX);
+            long written = 0;
+            try {
+                byte[] payload = jsonMapper.writeValueAsBytes(job);
+                Files.write(path, payload);
+                written = payload.length;
+                spills.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                spillFailures.incrementAndGet();
+                log.warn("Unable to spill async job jobId={} path={}", job.getJobId(), path, e);
+            }
+            List<Path> evicted;
+            lock.lock();
+            try {
+                DiskEntry entry = disk.get(job.getJobId());
+                if (entry == null) {
+                    continue;
+                }
+                if (written > 0) {
+                    entry.pending = null;
+                    entry.bytes = written;
+                    diskBytes += written;
+                } else {
+                    disk.remove(job.getJobId());
+                }
+                evicted = evictDiskOverLimitLocked(job.getJobId());
+            } finally {
+                lock.unlock();
+            }
+            for (Path file : evicted) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest spilled jobs until {@link #diskBytes} fits {@code spill-max-bytes}, keeping {@code keepJobId}
+     * and files still being written.
+     *
+     * @return files to delete once the lock is released
+     */
+    private List<Path> evictDiskOverLimitLocked(String keepJobId) {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, DiskEntry>> it = disk.entrySet().iterator();
+        while (spillMaxBytes > 0 && diskBytes > spillMaxBytes && it.hasNext()) {
+            Map.Entry<String, DiskEntry> eldest = it.next();
+            if (eldest.getValue().pending != null || eldest.getKey().equals(keepJobId)) {
+                continue;
+            }
+            it.remove();
+            diskBytes -= eldest.getValue().bytes;
+            diskEvictions.incrementAndGet();
+            evicted.add(eldest.getValue().path);
+        }
+        return evicted;
+    }
+
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+        List<Path> expiredFiles = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<MemoryEntry> memoryIt = memory.values().iterator();
+            while (memoryIt.hasNext()) {
+                MemoryEntry entry = memoryIt.next();
+                if (entry.status != AsyncJobStatus.PROCESSING && isExpired(entry.completedAtMillis, now)) {
+                    memoryIt.remove();
+                    memoryBytes -= entry.bytes;
+                    ttlEvictions.incrementAndGet();
+                }
+            }
+            Iterator<DiskEntry> diskIt = disk.values().iterator();
+            while (diskIt.hasNext()) {
+                DiskEntry entry = diskIt.next();
+                if (entry.pending == null && isExpired(entry.completedAtMillis, now)) {
+                    diskIt.remove();
+                    diskBytes -= entry.bytes;
+                    ttlEvictions.incrementAndGet();
+                    expiredFiles.add(entry.path);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Async job sweep failed", e);
+        } finally {
+            lock.unlock();
+        }
+        for (Path path : expiredFiles) {
+            deleteQuietly(path);
+        }
+    }
+
+    private boolean isExpired(long completedAtMillis, long now) {
+        return completedAtMillis > 0 && now - completedAtMillis > ttlMillis;
+    }
+
+    /**
+     * Approximate heap size of a finished job: string characters at two bytes each plus a fixed overhead per object.
+     * Walks the DTO instead of serializing it, so completion stays cheap for large quotes.
+     */
+    static long estimateBytes(AsyncJob job) {
+        long bytes = ENTRY_OVERHEAD_BYTES + chars(job.getError());
+        OcrQuoteDTO result = job.getResult();
+        if (result == null) {
+            return bytes;
+        }
+        bytes += OBJECT_OVERHEAD_BYTES + chars(result.getQuoteName()) + chars(result.getCustomerId())
+                + chars(result.getBrand()) + chars(result.getStatus()) + chars(result.getPoNumber())
+                + chars(result.getNotes()) + chars(result.getWarnings()) + chars(result.getMissingFields());
+        for (OcrQuoteLineDTO line : result.getQuoteItems()) {
+            bytes += OBJECT_OVERHEAD_BYTES + chars(line.getModelId()) + chars(line.getDescription())
+                    + chars(line.getColorParam()) + chars(line.getRowFlags());
+            for (Map.Entry<String, String> spec : line.getSpecs().entrySet()) {
+                bytes += OBJECT_OVERHEAD_BYTES + chars(spec.getKey()) + chars(spec.getValue());
+            }
+            for (OcrOptionDTO option : line.getOptions()) {
+                bytes += OBJECT_OVERHEAD_BYTES + chars(option.getSalesCode()) + chars(option.getOption())
+                        + chars(option.getName()) + chars(option.getPrice()) + chars(option.getLongDescription())
+                        + chars(option.getDescription());
+            }
+            for (ProductSuggestion suggestion : line.getSuggestions()) {
+                bytes += OBJECT_OVERHEAD_BYTES + chars(suggestion.getModelId()) + chars(suggestion.getSku())
+                        + chars(suggestion.getName());
+            }
+        }
+        return bytes;
+    }
+
+    private static long chars(String value) {
+        return value != null ? value.length() * 2L : 0L;
+    }
+
+    private static long chars(List<String> values) {
+        long bytes = 0;
+        for (String value : values) {
+            bytes += OBJECT_OVERHEAD_BYTES + chars(value);
+        }
+        return bytes;
+    }
+
+    /**
+     * Creates the spill directory and re-indexes spill files from a previous run that are still within TTL.
+     */
+    private Path initSpillDir(String configured) {
+        if (configured == null || configured.isBlank()) {
+            return null;
+        }
+        Path dir = Paths.get(configured.trim());
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            log.warn("Async job spill disabled; cannot create dir={}", dir, e);
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        List<DiskEntry> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SPILL_SUFFIX)) {
+            for (Path file : files) {
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (isExpired(modified, now)) {
+                    deleteQuietly(file);
+                    continue;
+                }
+                DiskEntry entry = new DiskEntry(file, modified, null);
+                entry.bytes = Files.size(file);
+                found.add(entry);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to index async job spill dir={}", dir, e);
+        }
+        found.sort(Comparator.comparingLong(e -> e.completedAtMillis));
+        for (DiskEntry entry : found) {
+            String name = entry.path.getFileName().toString();
+            disk.put(name.substring(0, name.length() - SPILL_SUFFIX.length()), entry);
+            diskBytes += entry.bytes;
+        }
+        for (Path file : evictDiskOverLimitLocked(null)) {
+            deleteQuietly(file);
+        }
+        return dir;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete spilled async job path={}", path, e);
+        }
+    }
+
+    private static final class MemoryEntry {
+        private final String jobId;
+        private AsyncJobStatus status = AsyncJobStatus.PROCESSING;
+        private OcrQuoteDTO result;
+        private String error;
+        private long bytes = ENTRY_OVERHEAD_BYTES;
+        private long completedAtMillis;
+
+        private MemoryEntry(String jobId) {
+            this.jobId = jobId;
+        }
+
+        private AsyncJob toJob() {
+            return new AsyncJob(jobId, status, result, error);
+        }
+    }
+
+    private static final class DiskEntry {
+        private final Path path;
+        private final long completedAtMillis;
+        /** Snapshot served while the spill file is being written. */
+        private AsyncJob pending;
+        private long bytes;
+
+        private DiskEntry(Path path, long completedAtMillis, AsyncJob pending) {
+            this.path = path;
+            this.completedAtMillis = completedAtMillis;
+            this.pending = pending;
+        }
+    }
+}
@@ -1,94 +1,238 @@
 package com.novae.ocr.service.impl;
 
-import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisClient;
+import com.azure.ai.formrecognizer.documentanalysis.DocumentAnalysisAsyncClient;
+import com.azure.ai.formrecognizer.documentanalysis.models.AnalyzeDocumentOptions;
 import com.azure.ai.formrecognizer.documentanalysis.models.AnalyzeResult;
 import com.azure.ai.formrecognizer.documentanalysis.models.DocumentPage;
 import com.azure.ai.formrecognizer.documentanalysis.models.DocumentSpan;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
 import com.azure.core.util.BinaryData;
-import com.azure.core.util.polling.SyncPoller;
+import com.azure.core.util.polling.LongRunningOperationStatus;
+import com.novae.ocr.cache.OcrResultCache;
 import com.novae.ocr.constants.OcrConstants;
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.dto.OcrDocument;
 import com.novae.ocr.exception.OcrProcessingException;
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.resilience.CircuitBreaker;
+import com.novae.ocr.resilience.CircuitBreakers;
+import com.novae.ocr.resilience.RetryPolicies;
+import com.novae.ocr.resilience.RetryPolicy;
 import com.novae.ocr.service.AzureOcrService;
+import com.novae.ocr.service.UploadSpoolService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 @Service
-public class AzureOcrServiceImpl implements AzureOcrService {
+public class AzureOcrServiceImpl implements AzureOcrService, StatsProvider {
 
     private static final Logger log = LoggerFactory.getLogger(AzureOcrServiceImpl.class);
     private static final String MODEL_PREBUILT_LAYOUT = "prebuilt-layout";
 
-    private final DocumentAnalysisClient documentAnalysisClient;
+    /** Throttling, 5xx and unreachable service are retried; Azure's Retry-After is honoured. */
+    private static final RetryPolicy.Classifier AZURE_RETRY = new RetryPolicy.Classifier() {
+        @Override
+        public boolean isRetryable(Throwable error) {
+            if (error instanceof HttpResponseException response && response.getResponse() != null) {
+                int status = response.getResponse().getStatusCode();
+                return status == 429 || status == 500 || status == 502 || status == 503 || status == 504;
+            }
+            return CircuitBreakers.isOutage(error);
+        }
+
+        @Override
+        public long retryAfterMs(Throwable error) {
+            if (error instanceof HttpResponseException response && response.getResponse() != null) {
+                return RetryPolicy.parseRetryAfter(response.getResponse().getHeaderValue(HttpHeaderName.RETRY_AFTER));
+            }
+            return -1L;
+        }
+    };
 
-    public AzureOcrServiceImpl(@Nullable DocumentAnalysisClient documentAnalysisClient) {
-        this.documentAnalysisClient = documentAnalysisClient;
+    private final DocumentAnalysisAsyncClient documentAnalysisAsyncClient;
+    private final UploadSpoolService uploadSpoolService;
+    private final OcrResultCache ocrResultCache;
+    private final CircuitBreaker analyzeBreaker;
+    private final RetryPolicy analyzeRetry;
+    private final int maxInflightAnalyses;
+    private final int maxPagesPerBatch;
+    private final long agingNanos;
+
+    /** Guards {@link #pendingAnalyses} and {@link #inflightAnalyses}. */
+    private final ReentrantLock analysisLock = new ReentrantLock();
+    private final ArrayDeque<PendingAnalysis> pendingAnalyses = new ArrayDeque<>();
+    private int inflightAnalyses;
+    private final AtomicLong analysesStarted = new AtomicLong();
+    private final AtomicLong analysesSkipped = new AtomicLong();
+    private final AtomicLong analysesFailed = new AtomicLong();
+
+    public AzureOcrServiceImpl(
+            @Nullable DocumentAnalysisAsyncClient documentAnalysisAsyncClient,
+            UploadSpoolService uploadSpoolService,
+            OcrResultCache ocrResultCache,
+            CircuitBreakers circuitBreakers,
+            RetryPolicies retryPolicies,
+            @Value("${ocr.azure.max-inflight-analyses:8}") int maxInflightAnalyses,
+            @Value("${" + OcrConstants.CONFIG_MAX_PAGES_PER_BATCH + ":20}") int maxPagesPerBatch,
+            @Value("${ocr.priority.aging-ms:10000}") long priorityAgingMs) {
+        this.documentAnalysisAsyncClient = documentAnalysisAsyncClient;
+        this.uploadSpoolService = uploadSpoolService;
+        this.ocrResultCache = ocrResultCache;
+        this.analyzeBreaker = circuitBreakers.azureAnalyze();
+        this.analyzeRetry = retryPolicies.azureAnalyze();
+        this.maxInflightAnalyses = Math.max(1, maxInflightAnalyses);
+        this.maxPagesPerBatch = Math.max(1, maxPagesPerBatch);
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, priorityAgingMs));
     }
 
     @Override
     public String extractText(MultipartFile file) {
-        if (documentAnalysisClient == null) {
+        if (documentAnalysisAsyncClient == null) {
             return "";
         }
+        Path spoolFile = uploadSpoolService.spool(file);
         try {
-            return extractText(file.getInputStream(), file.getOriginalFilename());
-        } catch (IOException e) {
-            throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, e);
+            return extractText(spoolFile, file.getOriginalFilename());
+        } finally {
+            uploadSpoolService.release(spoolFile);
         }
     }
 
     @Override
     public String extractText(InputStream inputStream, @Nullable String fileName) {
-        if (documentAnalysisClient == null) {
+        if (documentAnalysisAsyncClient == null) {
             return "";
         }
+        Path spoolFile = uploadSpoolService.spool(inputStream, fileName);
         try {
-            return doExtract(inputStream, fileName);
-        } catch (Exception e) {
-            log.warn("Azure OCR failed for file={}", fileName, e);
-            if (isUnknownHost(e)) {
-                throw new OcrProcessingException(OcrConstants.ERROR_OCR_DNS_FAILED, e);
-            }
-            throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, e);
+            return extractText(spoolFile, fileName);
+        } finally {
+            uploadSpoolService.release(spoolFile);
         }
     }
 
+    @Override
+    public String extractText(Path pdfFile, @Nullable String fileName) {
+        if (documentAnalysisAsyncClient == null) {
+            return "";
+        }
+        return await(extractTextAsync(pdfFile, fileName, Priority.INTERACTIVE, () -> Long.MAX_VALUE));
+    }
+
     @Override
     public List<String> extractTextByPages(InputStream inputStream, @Nullable String fileName) {
-        if (documentAnalysisClient == null) {
+        if (documentAnalysisAsyncClient == null) {
             return List.of();
         }
+        Path spoolFile = uploadSpoolService.spool(inputStream, fileName);
         try {
-            return doExtractByPages(inputStream, fileName);
-        } catch (Exception e) {
-            log.warn("Azure OCR by-pages failed for file={}", fileName, e);
-            if (isUnknownHost(e)) {
-                throw new OcrProcessingException(OcrConstants.ERROR_OCR_DNS_FAILED, e);
+            return extractTextByPages(spoolFile, fileName);
+        } finally {
+            uploadSpoolService.release(spoolFile);
+        }
+    }
+
+    @Override
+    public List<String> extractTextByPages(Path pdfFile, @Nullable String fileName) {
+        if (documentAnalysisAsyncClient == null) {
+            return List.of();
+        }
+        return await(extractTextByPagesAsync(pdfFile, fileName, Priority.INTERACTIVE, () -> Long.MAX_VALUE));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> extractTextByPagesAsync(Path pdfFile, @Nullable String fileName,
+                                                                   Priority priority, LongSupplier remainingNanos) {
+        if (documentAnalysisAsyncClient == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return analyze(pdfFile, fileName, priority, remainingNanos, OcrDocument::getPageTexts);
+    }
+
+    @Override
+    public CompletableFuture<String> extractTextAsync(Path pdfFile, @Nullable String fileName, Priority priority,
+                                                     LongSupplier remainingNanos) {
+        if (documentAnalysisAsyncClient == null) {
+            return CompletableFuture.completedFuture("");
+        }
+        return analyze(pdfFile, fileName, priority, remainingNanos, OcrDocument::getContent);
+    }
+
+    /**
+     * The returned future doubles as the caller's cancellation signal: once it is done (cancelled, or completed by
+     * a deadline), analyses still queued for it are dropped instead of started.
+     */
+    private <T> CompletableFuture<T> analyze(Path pdfFile, @Nullable String fileName, Priority priority,
+                                             LongSupplier remainingNanos, Function<OcrDocument, T> view) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Caller caller = new Caller(result, priority, remainingNanos);
+        analyzeDocumentAsync(pdfFile, fileName, caller).whenComplete((document, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+            } else {
+                result.complete(view.apply(document));
             }
-            throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, e);
+        });
+        return result;
+    }
+
+    @Override
+    public String statsName() {
+        return "azureOcr";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        analysisLock.lock();
+        try {
+            stats.put("inflight", inflightAnalyses);
+            stats.put("queued", pendingAnalyses.size());
+        } finally {
+            analysisLock.unlock();
         }
+        stats.put("maxInflight", maxInflightAnalyses);
+        stats.put("started", analysesStarted.get());
+        stats.put("skipped", analysesSkipped.get());
+        stats.put("failed", analysesFailed.get());
+        return stats;
     }
 
-    private String doExtract(InputStream inputStream, @Nullable String fileName) throws IOException {
-        AnalyzeResult result = analyzeDocument(inputStream, fileName);
+    private static String content(AnalyzeResult result) {
         if (result == null) return "";
         String content = result.getContent();
         return content != null ? content : "";
     }
 
-    private List<String> doExtractByPages(InputStream inputStream, @Nullable String fileName) throws IOException {
-        AnalyzeResult result = analyzeDocument(inputStream, fileName);
+    private static List<String> pageTexts(AnalyzeResult result) {
         if (result == null || result.getPages() == null) return List.of();
-        String content = result.getContent();
-        if (content == null) content = "";
+        String content = content(result);
         List<String> pageTexts = new ArrayList<>();
         for (DocumentPage page : result.getPages()) {
             if (page.getSpans() == null || page.getSpans().isEmpty()) {
@@ -108,22 +252,407 @@ public class AzureOcrServiceImpl implements AzureOcrService {
         return pageTexts;
     }
 
-    private AnalyzeResult analyzeDocument(InputStream inputStream, @Nullable String fileName) throws IOException {
-        byte[] bytes = readFully(inputStream);
-        BinaryData document = BinaryData.fromBytes(bytes);
-        SyncPoller<?, AnalyzeResult> poller =
-                documentAnalysisClient.beginAnalyzeDocument(MODEL_PREBUILT_LAYOUT, document);
-        return poller.getFinalResult();
+    /**
+     * Serves identical PDFs from {@link OcrResultCache}; otherwise analyzes and caches non-empty output.
+     */
+    private CompletableFuture<OcrDocument> analyzeDocumentAsync(Path pdfFile, @Nullable String fileName,
+                                                           Caller caller) {
+        String cacheKey = cacheKey(pdfFile, fileName);
+        if (cacheKey != null) {
+            Optional<OcrDocument> cached = ocrResultCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.info("Azure OCR cache hit file={}", fileName);
+                return CompletableFuture.completedFuture(cached.get());
+            }
+        }
+        return analyzeUncachedAsync(pdfFile, fileName, caller).thenApply(document -> {
+            if (cacheKey != null && !document.getContent().isBlank()) {
+                ocrResultCache.put(cacheKey, document);
+            }
+            return document;
+        });
+    }
+
+    private String cacheKey(Path pdfFile, @Nullable String fileName) {
+        if (!ocrResultCache.isEnabled()) {
+            return null;
+        }
+        try {
+            return ocrResultCache.key(pdfFile, MODEL_PREBUILT_LAYOUT);
+        } catch (RuntimeException e) {
+            log.warn("Unable to hash file={} for OCR cache", fileName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Analyzes the PDF as one request, or, above {@code ocr.process.max-pages-per-batch} pages, as parallel
+     * page-range requests whose contents and page texts are stitched back in page order.
+     * <p>
+     * The page count is a heuristic. When {@link PdfPageCounter} is unsure of it, or the last batch returned more
+     * pages than it asked for, further ranges are requested (see {@link #analyzeTail}) so trailing pages are never
+     * dropped; a count it is sure of costs no extra request.
+     */
+    private CompletableFuture<OcrDocument> analyzeUncachedAsync(Path pdfFile, @Nullable String fileName,
+                                                           Caller caller) {
+        PdfPageCounter.PageCount count = PdfPageCounter.countPages(pdfFile);
+        int pageCount = count.pages();
+        List<PageRange> ranges = pageRanges(pageCount, maxPagesPerBatch);
+        if (ranges.size() <= 1) {
+            return analyzePagesAsync(pdfFile, fileName, null, caller)
+                    .thenApply(result -> new OcrDocument(content(result), pageTexts(result)));
+        }
+        log.info("Azure OCR splitting file={} pages={} into {} batches", fileName, pageCount, ranges.size());
+        List<CompletableFuture<AnalyzeResult>> batches = new ArrayList<>(ranges.size());
+        for (PageRange range : ranges) {
+            batches.add(analyzePagesAsync(pdfFile, fileName, range.toString(), caller));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+                .thenCompose(ignored -> {
+                    List<AnalyzeResult> results = new ArrayList<>(batches.size());
+                    for (CompletableFuture<AnalyzeResult> batch : batches) {
+                        results.add(batch.join());
+                    }
+                    return analyzeTail(results, ranges.getLast(), count.exact(), maxPagesPerBatch, range -> {
+                        log.info("Azure OCR requesting pages {} of file={} past the estimated {}", range, fileName,
+                                pageCount);
+                        return retrying(() -> analyzeAttemptAsync(pdfFile, range.toString(), caller), caller);
+                    });
+                })
+                .handle((results, error) -> {
+                    if (error != null) {
+                        throw failure(unwrap(error), fileName);
+                    }
+                    return stitch(results);
+                });
+    }
+
+    /**
+     * Appends the ranges after {@code last} while the latest batch came back full. With an exact page count the last
+     * batch is always full, so the first extra range is requested only if the count is not exact or the batch
+     * returned more pages than it asked for. A range Azure rejects (4xx) or whose analysis fails ends the document;
+     * other failures fail the result.
+     */
+    static CompletableFuture<List<AnalyzeResult>> analyzeTail(
+            List<AnalyzeResult> results, PageRange last, boolean exactCount, int maxPagesPerBatch,
+            Function<PageRange, CompletableFuture<AnalyzeResult>> analyze) {
+        int returned = pageCount(results.getLast());
+        if (exactCount ? returned <= last.size() : returned < last.size()) {
+            return CompletableFuture.completedFuture(results);
+        }
+        PageRange next = last.next(maxPagesPerBatch);
+        return analyze.apply(next)
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return result;
+                    }
+                    if (isPastLastPage(unwrap(error))) {
+                        return null;
+                    }
+                    throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                })
+                .thenCompose(result -> {
+                    if (result == null || pageCount(result) == 0) {
+                        return CompletableFuture.completedFuture(results);
+                    }
+                    results.add(result);
+                    return analyzeTail(results, next, false, maxPagesPerBatch, analyze);
+                });
+    }
+
+    private CompletableFuture<AnalyzeResult> analyzePagesAsync(Path pdfFile, @Nullable String fileName,
+                                                          @Nullable String pageRange, Caller caller) {
+        return retrying(() -> analyzeAttemptAsync(pdfFile, pageRange, caller), caller)
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return result;
+                    }
+                    throw failure(unwrap(error), fileName);
+                });
+    }
+
+    /**
+     * Runs {@code attempt} under the Azure retry policy within the caller's remaining time; retries stop once the
+     * caller's future is done.
+     */
+    private CompletableFuture<AnalyzeResult> retrying(Supplier<CompletableFuture<AnalyzeResult>> attempt,
+                                                      Caller caller) {
+        CompletableFuture<AnalyzeResult> attempts =
+                analyzeRetry.executeAsync(attempt, AZURE_RETRY, caller.remainingNanos());
+        caller.future().whenComplete((ignored, error) -> attempts.cancel(false));
+        return attempts;
+    }
+
+    private RuntimeException failure(Throwable cause, @Nullable String fileName) {
+        if (cause instanceof CancellationException cancelled) {
+            return cancelled;
+        }
+        return toOcrException(cause, fileName);
+    }
+
+    /**
+     * How Azure answers a range starting past the last page: rejected up front (4xx), or accepted and then reported
+     * as a failed operation (an error without an HTTP response, or a final FAILED status).
+     */
+    private static boolean isPastLastPage(Throwable error) {
+        if (error instanceof AnalysisFailedException) {
+            return true;
+        }
+        if (error instanceof HttpResponseException response) {
+            if (response.getResponse() == null) {
+                return true;
+            }
+            int status = response.getResponse().getStatusCode();
+            return status >= 400 && status < 500 && status != 429;
+        }
+        return false;
+    }
+
+    private static int pageCount(AnalyzeResult result) {
+        return result != null && result.getPages() != null ? result.getPages().size() : 0;
     }
 
-    private static byte[] readFully(InputStream in) throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        byte[] buf = new byte[8192];
-        int n;
-        while ((n = in.read(buf)) != -1) {
-            out.write(buf, 0, n);
+    /**
+     * One analysis attempt. Fails fast with the breaker's exception while the Azure circuit is open, before taking
+     * an analysis slot.
+     */
+    private CompletableFuture<AnalyzeResult> analyzeAttemptAsync(Path pdfFile, @Nullable String pageRange,
+                                                            Caller caller) {
+        CircuitBreaker.Call breakerCall;
+        try {
+            breakerCall = analyzeBreaker.acquire();
+        } catch (OcrProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return withAnalysisPermit(() -> {
+            // File-backed BinaryData streams the PDF in chunks when the request body is written.
+            BinaryData document = BinaryData.fromFile(pdfFile);
+            AnalyzeDocumentOptions options = new AnalyzeDocumentOptions();
+            if (pageRange != null) {
+                options.setPages(List.of(pageRange));
+            }
+            return documentAnalysisAsyncClient.beginAnalyzeDocument(MODEL_PREBUILT_LAYOUT, document, options)
+                    .last()
+                    .flatMap(response -> response.getStatus() == LongRunningOperationStatus.FAILED
+                            ? Mono.<AnalyzeResult>error(new AnalysisFailedException(pageRange))
+                            : response.getFinalResult())
+                    .toFuture();
+        }, caller).whenComplete((result, error) -> {
+            if (error == null) {
+                breakerCall.onSuccess();
+            } else {
+                recordFailure(breakerCall, unwrap(error));
+            }
+        });
+    }
+
+    /**
+     * 5xx responses and unreachable/timed-out service count against the breaker; other HTTP errors show Azure is
+     * up, and anything else (e.g. an unreadable file) says nothing about it.
+     */
+    private static void recordFailure(CircuitBreaker.Call breakerCall, Throwable cause) {
+        if (cause instanceof HttpResponseException response && response.getResponse() != null) {
+            if (response.getResponse().getStatusCode() >= 500) {
+                breakerCall.onFailure();
+            } else {
+                breakerCall.onSuccess();
+            }
+        } else if (CircuitBreakers.isOutage(cause)) {
+            breakerCall.onFailure();
+        } else {
+            breakerCall.close();
+        }
+    }
+
+    /**
+     * Splits {@code pageCount} pages into page ranges (1-20, 21-40, ...).
+     * Unknown or small page counts yield no ranges: a single unrestricted batch.
+     */
+    static List<PageRange> pageRanges(int pageCount, int maxPagesPerBatch) {
+        if (pageCount <= maxPagesPerBatch) {
+            return List.of();
+        }
+        List<PageRange> ranges = new ArrayList<>();
+        for (int first = 1; first <= pageCount; first += maxPagesPerBatch) {
+            ranges.add(new PageRange(first, Math.min(pageCount, first + maxPagesPerBatch - 1)));
+        }
+        return ranges;
+    }
+
+    /**
+     * Inclusive 1-based page range; {@link #toString()} is the Azure {@code pages} syntax ("21-40", or "41").
+     */
+    record PageRange(int first, int last) {
+
+        int size() {
+            return last - first + 1;
+        }
+
+        PageRange next(int maxPagesPerBatch) {
+            return new PageRange(last + 1, last + maxPagesPerBatch);
+        }
+
+        @Override
+        public String toString() {
+            return first == last ? String.valueOf(first) : first + "-" + last;
+        }
+    }
+
+    /**
+     * Joins page-range results in request order. Spans of each result index into that result's own
+     * content, so page texts are cut per batch before the contents are concatenated.
+     */
+    static OcrDocument stitch(List<AnalyzeResult> batches) {
+        StringBuilder content = new StringBuilder();
+        List<String> pageTexts = new ArrayList<>();
+        for (AnalyzeResult batch : batches) {
+            String batchContent = content(batch);
+            if (!batchContent.isEmpty()) {
+                if (content.length() > 0) {
+                    content.append('\n');
+                }
+                content.append(batchContent);
+            }
+            pageTexts.addAll(pageTexts(batch));
+        }
+        return new OcrDocument(content.toString(), pageTexts);
+    }
+
+    /**
+     * Starts the analysis when fewer than {@code ocr.azure.max-inflight-analyses} are running, otherwise
+     * queues it until a running analysis finishes; queued analyses start by the caller's {@link Priority}, aged by
+     * {@code ocr.priority.aging-ms}. Never blocks the calling thread. A queued analysis whose {@code caller} is done
+     * by the time a permit frees up is not started; it completes with a {@link CancellationException}.
+     */
+    private <T> CompletableFuture<T> withAnalysisPermit(Supplier<CompletableFuture<T>> analysis,
+                                                        Caller caller) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            analysesStarted.incrementAndGet();
+            CompletableFuture<T> running;
+            try {
+                running = analysis.get();
+            } catch (RuntimeException e) {
+                releaseAnalysisPermit();
+                result.completeExceptionally(e);
+                return;
+            }
+            running.whenComplete((value, error) -> {
+                releaseAnalysisPermit();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        boolean runNow;
+        analysisLock.lock();
+        try {
+            runNow = inflightAnalyses < maxInflightAnalyses;
+            if (runNow) {
+                inflightAnalyses++;
+            } else {
+                pendingAnalyses.addLast(new PendingAnalysis(caller, result, start, System.nanoTime()));
+            }
+        } finally {
+            analysisLock.unlock();
+        }
+        if (runNow) {
+            start.run();
         }
-        return out.toByteArray();
+        return result;
+    }
+
+    private void releaseAnalysisPermit() {
+        PendingAnalysis next;
+        List<PendingAnalysis> skipped = new ArrayList<>();
+        analysisLock.lock();
+        try {
+            next = pollNextAnalysis(pendingAnalyses, System.nanoTime(), agingNanos, skipped);
+            if (next == null) {
+                inflightAnalyses--;
+            }
+        } finally {
+            analysisLock.unlock();
+        }
+        for (PendingAnalysis analysis : skipped) {
+            analysesSkipped.incrementAndGet();
+            analysis.result().completeExceptionally(new CancellationException("Caller no longer waiting"));
+        }
+        if (next != null) {
+            // Permit is handed over to the queued analysis.
+            next.start().run();
+        }
+    }
+
+    /**
+     * Removes and returns the queued analysis with the best aged priority rank, the earliest queued among equals.
+     * Analyses whose caller is done are removed into {@code skipped} on the way.
+     */
+    static PendingAnalysis pollNextAnalysis(Collection<PendingAnalysis> pending, long nowNanos, long agingNanos,
+                                            List<PendingAnalysis> skipped) {
+        PendingAnalysis best = null;
+        double bestRank = Double.MAX_VALUE;
+        for (Iterator<PendingAnalysis> it = pending.iterator(); it.hasNext(); ) {
+            PendingAnalysis analysis = it.next();
+            if (analysis.caller().future().isDone()) {
+                it.remove();
+                skipped.add(analysis);
+                continue;
+            }
+            double rank = analysis.caller().priority().rank(nowNanos - analysis.queuedNanos(), agingNanos);
+            if (best == null || rank < bestRank) {
+                best = analysis;
+                bestRank = rank;
+            }
+        }
+        if (best != null) {
+            pending.remove(best);
+        }
+        return best;
+    }
+
+    record PendingAnalysis(Caller caller, CompletableFuture<?> result, Runnable start, long queuedNanos) {
+    }
+
+    /**
+     * The future returned to the caller (done once it no longer needs the result), its priority and the time it has
+     * left.
+     */
+    record Caller(CompletableFuture<?> future, Priority priority, LongSupplier remainingNanos) {
+    }
+
+    private OcrProcessingException toOcrException(Throwable error, @Nullable String fileName) {
+        if (error instanceof OcrProcessingException ocrException) {
+            return ocrException;
+        }
+        analysesFailed.incrementAndGet();
+        log.warn("Azure OCR failed for file={}", fileName, error);
+        if (isUnknownHost(error)) {
+            return new OcrProcessingException(OcrConstants.ERROR_OCR_DNS_FAILED, error);
+        }
+        return new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, error);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+        while (current instanceof CompletionException && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
     }
 
     private static boolean isUnknownHost(Throwable throwable) {
@@ -136,4 +665,14 @@ public class AzureOcrServiceImpl implements AzureOcrService {
         }
         return false;
     }
+
+    /**
+     * The analysis operation was accepted but ended FAILED; not retried, and says nothing about Azure's health.
+     */
+    static final class AnalysisFailedException extends RuntimeException {
+
+        AnalysisFailedException(@Nullable String pageRange) {
+            super("Azure analysis failed" + (pageRange != null ? " for pages " + pageRange : ""));
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.cache.LineFingerprint;
+import com.novae.ocr.dto.ExtractedLine;
+import com.novae.ocr.dto.ResolutionResult;
+import com.novae.ocr.dto.ResolvedLine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the lines of one quote that describe the same product configuration, so each is resolved once.
+ * <p>
+ * Lines are grouped by {@link LineFingerprint} without color; quantity and price are not part of the fingerprint
+ * either. {@link #fanOut} copies each unique line's resolution back to every member of its group, keeping the
+ * member's own extracted color when it differs from the one that was resolved.
+ */
+final class DuplicateLines {
+
+    private final List<ExtractedLine> lines;
+    private final List<Integer> uniqueIndexes = new ArrayList<>();
+    private final int[] groupOf;
+
+    private DuplicateLines(List<ExtractedLine> lines, String vendorName) {
+        this.lines = lines;
+        this.groupOf = new int[lines.size()];
+        Map<String, Integer> groupByFingerprint = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            ExtractedLine line = lines.get(i);
+            if (line == null) {
+                groupOf[i] = uniqueIndexes.size();
+                uniqueIndexes.add(i);
+                continue;
+            }
+            Integer group = groupByFingerprint.putIfAbsent(LineFingerprint.of(line, vendorName, false),
+                    uniqueIndexes.size());
+            if (group == null) {
+                groupOf[i] = uniqueIndexes.size();
+                uniqueIndexes.add(i);
+            } else {
+                groupOf[i] = group;
+            }
+        }
+    }
+
+    static DuplicateLines of(List<ExtractedLine> lines, String vendorName) {
+        return new DuplicateLines(lines, vendorName);
+    }
+
+    boolean hasDuplicates() {
+        return uniqueIndexes.size() < lines.size();
+    }
+
+    int duplicateCount() {
+        return lines.size() - uniqueIndexes.size();
+    }
+
+    /**
+     * Index of the first line of each group, in line order.
+     */
+    List<Integer> uniqueIndexes() {
+        return uniqueIndexes;
+    }
+
+    /**
+     * Expands a result over the unique lines to one over all lines. Line paths in missing fields are repeated
+     * for every member of the group.
+     */
+    ResolutionResult fanOut(ResolutionResult unique) {
+        List<ResolvedLine> uniqueLines = unique.getLines() != null ? unique.getLines() : List.of();
+        List<List<Integer>> members = new ArrayList<>(uniqueIndexes.size());
+        for (int g = 0; g < uniqueIndexes.size(); g++) {
+            members.add(new ArrayList<>());
+        }
+        List<ResolvedLine> fanned = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            int group = groupOf[i];
+            members.get(group).add(i);
+            ResolvedLine resolved = group < uniqueLines.size() ? uniqueLines.get(group) : null;
+            if (resolved == null || uniqueIndexes.get(group) == i) {
+                fanned.add(resolved);
+                continue;
+            }
+            ResolvedLine copy = resolved.copy();
+            String color = lines.get(i).getColor();
+            String resolvedColor = lines.get(uniqueIndexes.get(group)).getColor();
+            if (!LineFingerprint.normalize(color).equals(LineFingerprint.normalize(resolvedColor))) {
+                copy.setNormalizedColor(color != null ? color.trim() : null);
+            }
+            fanned.add(copy);
+        }
+        ResolutionResult result = new ResolutionResult();
+        result.setLines(fanned);
+        result.setResolvedVendorId(unique.getResolvedVendorId());
+        result.setOverallConfidence(unique.getOverallConfidence());
+        result.setWarnings(new ArrayList<>(unique.getWarnings()));
+        result.setMissingFields(LinePaths.expand(unique.getMissingFields(),
+                group -> group < members.size() ? members.get(group) : List.of(group)));
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.novae.ocr.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites line indexes in field paths such as {@code lines[3].unitPrice} when lines are split or merged.
+ */
+final class LinePaths {
+
+    private static final Pattern LINE_PATH_PATTERN = Pattern.compile("lines\\[(\\d+)]");
+
+    private LinePaths() {}
+
+    /**
+     * Maps every {@code lines[i]} to {@code lines[mapper(i)]}; a path is dropped when the mapper returns a
+     * negative index. Paths without a line index are kept as is.
+     */
+    static List<String> remap(List<String> paths, IntUnaryOperator mapper) {
+        List<String> remapped = new ArrayList<>();
+        if (paths == null) {
+            return remapped;
+        }
+        for (String path : paths) {
+            if (path == null) continue;
+            Matcher matcher = LINE_PATH_PATTERN.matcher(path);
+            StringBuilder sb = new StringBuilder();
+            boolean dropped = false;
+            while (matcher.find()) {
+                int mapped = mapper.applyAsInt(Integer.parseInt(matcher.group(1)));
+                if (mapped < 0) {
+                    dropped = true;
+                    break;
+                }
+                matcher.appendReplacement(sb, "lines[" + mapped + "]");
+            }
+            if (dropped) continue;
+            matcher.appendTail(sb);
+            remapped.add(sb.toString());
+        }
+        return remapped;
+    }
+
+    /**
+     * Only the paths that refer to a line, e.g. to drop quote-level paths such as {@code total}.
+     */
+    static List<String> withLineIndex(List<String> paths) {
+        List<String> lineLevel = new ArrayList<>();
+        if (paths == null) {
+            return lineLevel;
+        }
+        for (String path : paths) {
+            if (path != null && LINE_PATH_PATTERN.matcher(path).find()) {
+                lineLevel.add(path);
+            }
+        }
+        return lineLevel;
+    }
+
+    /**
+     * Copies every path once per index in {@code mapper(i)}, e.g. to fan a finding on one line out to its
+     * duplicates. Paths without a line index are kept once; paths with several indexes use only the first.
+     */
+    static List<String> expand(List<String> paths, IntFunction<List<Integer>> mapper) {
+        List<String> expanded = new ArrayList<>();
+        if (paths == null) {
+            return expanded;
+        }
+        for (String path : paths) {
+            if (path == null) continue;
+            Matcher matcher = LINE_PATH_PATTERN.matcher(path);
+            if (!matcher.find()) {
+                expanded.add(path);
+                continue;
+            }
+            for (int target : mapper.apply(Integer.parseInt(matcher.group(1)))) {
+                expanded.add(path.substring(0, matcher.start()) + "lines[" + target + "]" + path.substring(matcher.end()));
+            }
+        }
+        return expanded;
+    }
+}
@@ -0,0 +1,262 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.service.OcrTextCompactor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Page-aware OCR text compaction.
+ * <p>
+ * A line within the first or last {@code header-footer-lines} non-blank lines of a page is a running header or
+ * footer when the same line (digits ignored, so "Page 2 of 5" matches "Page 3 of 5") appears in that zone on at
+ * least {@code repeat-ratio} of the pages, and on at least three; it is kept where it first appears and removed
+ * elsewhere. Lines with a price are never treated as headers, since digit-insensitive matching would otherwise take
+ * similar line items ("Shelf 24in qty 2 $10.00", "Shelf 36in qty 4 $14.00") for one repeated line. A page after the
+ * first with at least {@code boilerplate-min-hits} boilerplate phrases and no prices is dropped. Finally runs of
+ * spaces and tabs become one space and blank line runs one blank line. Tokens are estimated at four bytes each.
+ */
+@Service
+public class OcrTextCompactorImpl implements OcrTextCompactor, StatsProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrTextCompactorImpl.class);
+    private static final Pattern INLINE_WHITESPACE = Pattern.compile("[ \\t\\u00A0]+");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern PRICE = Pattern.compile("\\$\\s?\\d|\\d[\\d,]*\\.\\d{2}\\b");
+    private static final int BYTES_PER_TOKEN = 4;
+    /** A line seen on only two pages is too weak a signal for a running header. */
+    private static final int MIN_REPEAT_PAGES = 3;
+
+    private final boolean enabled;
+    private final int headerFooterLines;
+    private final double repeatRatio;
+    private final List<String> boilerplatePhrases;
+    private final int boilerplateMinHits;
+    private final AtomicLong jobs = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong repeatedLinesRemoved = new AtomicLong();
+    private final AtomicLong boilerplatePagesDropped = new AtomicLong();
+
+    public OcrTextCompactorImpl(
+            @Value("${ocr.compaction.enabled:false}") boolean enabled,
+            @Value("${ocr.compaction.header-footer-lines:3}") int headerFooterLines,
+            @Value("${ocr.compaction.repeat-ratio:0.6}") double repeatRatio,
+            @Value("${ocr.compaction.boilerplate-phrases:terms and conditions,limitation of liability,governing law,"
+                    + "indemnif,arbitration,warranty,privacy policy,all rights reserved}") List<String> boilerplatePhrases,
+            @Value("${ocr.compaction.boilerplate-min-hits:2}") int boilerplateMinHits) {
+        this.enabled = enabled;
+        this.headerFooterLines = Math.max(0, headerFooterLines);
+        this.repeatRatio = Math.min(1.0, Math.max(0.0, repeatRatio));
+        this.boilerplatePhrases = boilerplatePhrases.stream()
+                .map(phrase -> phrase.trim().toLowerCase(Locale.ROOT))
+                .filter(phrase -> !phrase.isEmpty())
+                .toList();
+        this.boilerplateMinHits = Math.max(1, boilerplateMinHits);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public List<String> compact(List<String> pages) {
+        if (!enabled || pages == null || pages.isEmpty()) {
+            return pages;
+        }
+        List<List<String>> pageLines = new ArrayList<>(pages.size());
+        long inBytes = 0;
+        for (String page : pages) {
+            inBytes += utf8Length(page);
+            pageLines.add(normalizedLines(page));
+        }
+        int removed = removeRepeatedHeadersAndFooters(pageLines);
+        List<String> compacted = new ArrayList<>(pages.size());
+        long outBytes = 0;
+        int dropped = 0;
+        for (int i = 0; i < pageLines.size(); i++) {
+            if (i > 0 && isBoilerplate(pageLines.get(i))) {
+                dropped++;
+                continue;
+            }
+            String page = join(pageLines.get(i));
+            outBytes += utf8Length(page);
+            compacted.add(page);
+        }
+        jobs.incrementAndGet();
+        bytesIn.addAndGet(inBytes);
+        bytesOut.addAndGet(outBytes);
+        repeatedLinesRemoved.addAndGet(removed);
+        boilerplatePagesDropped.addAndGet(dropped);
+        log.info("Compacted OCR text {} -> {} bytes (~{} tokens saved; {} repeated lines, {} boilerplate pages removed)",
+                inBytes, outBytes, (inBytes - outBytes) / BYTES_PER_TOKEN, removed, dropped);
+        return compacted;
+    }
+
+    /**
+     * Trimmed lines with inline whitespace collapsed; leading/trailing blanks dropped and blank runs reduced to one.
+     */
+    private static List<String> normalizedLines(String page) {
+        List<String> lines = new ArrayList<>();
+        if (page == null) {
+            return lines;
+        }
+        boolean previousBlank = true;
+        for (String raw : page.split("\\R")) {
+            String line = INLINE_WHITESPACE.matcher(raw).replaceAll(" ").trim();
+            if (line.isEmpty()) {
+                if (!previousBlank) {
+                    lines.add(line);
+                }
+                previousBlank = true;
+            } else {
+                lines.add(line);
+                previousBlank = false;
+            }
+        }
+        if (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines;
+    }
+
+    private int removeRepeatedHeadersAndFooters(List<List<String>> pageLines) {
+        if (headerFooterLines == 0 || pageLines.size() < MIN_REPEAT_PAGES) {
+            return 0;
+        }
+        Map<String, Integer> pagesWithLine = new HashMap<>();
+        for (List<String> lines : pageLines) {
+            for (String key : zoneKeys(lines)) {
+                pagesWithLine.merge(key, 1, Integer::sum);
+            }
+        }
+        int threshold = Math.max(MIN_REPEAT_PAGES, (int) Math.ceil(repeatRatio * pageLines.size()));
+        Set<String> repeated = new HashSet<>();
+        pagesWithLine.forEach((key, count) -> {
+            if (count >= threshold) {
+                repeated.add(key);
+            }
+        });
+        if (repeated.isEmpty()) {
+            return 0;
+        }
+        // The first page showing a repeated line keeps it (it may carry vendor or PO details).
+        Set<String> kept = new HashSet<>();
+        int removed = 0;
+        for (List<String> lines : pageLines) {
+            List<Integer> zone = zoneIndexes(lines);
+            Set<String> keptHere = new HashSet<>();
+            // Remove from the end so earlier indexes stay valid.
+            for (int z = zone.size() - 1; z >= 0; z--) {
+                int index = zone.get(z);
+                if (PRICE.matcher(lines.get(index)).find()) {
+                    continue;
+                }
+                String key = key(lines.get(index));
+                if (!repeated.contains(key)) {
+                    continue;
+                }
+                if (kept.contains(key)) {
+                    lines.remove(index);
+                    removed++;
+                } else {
+                    keptHere.add(key);
+                }
+            }
+            kept.addAll(keptHere);
+        }
+        return removed;
+    }
+
+    private Set<String> zoneKeys(List<String> lines) {
+        Set<String> keys = new HashSet<>();
+        for (int index : zoneIndexes(lines)) {
+            if (!PRICE.matcher(lines.get(index)).find()) {
+                keys.add(key(lines.get(index)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Indexes of the first and last {@code headerFooterLines} non-blank lines, ascending.
+     */
+    private List<Integer> zoneIndexes(List<String> lines) {
+        List<Integer> head = new ArrayList<>();
+        for (int i = 0; i < lines.size() && head.size() < headerFooterLines; i++) {
+            if (!lines.get(i).isEmpty()) head.add(i);
+        }
+        List<Integer> tail = new ArrayList<>();
+        for (int i = lines.size() - 1; i >= 0 && tail.size() < headerFooterLines; i--) {
+            if (!lines.get(i).isEmpty() && !head.contains(i)) tail.add(0, i);
+        }
+        head.addAll(tail);
+        return head;
+    }
+
+    private static String key(String line) {
+        return DIGITS.matcher(line.toLowerCase(Locale.ROOT)).replaceAll("#");
+    }
+
+    private boolean isBoilerplate(List<String> lines) {
+        String text = String.join("\n", lines).toLowerCase(Locale.ROOT);
+        if (text.isBlank() || PRICE.matcher(text).find()) {
+            return false;
+        }
+        int hits = 0;
+        for (String phrase : boilerplatePhrases) {
+            if (text.contains(phrase) && ++hits >= boilerplateMinHits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String join(List<String> lines) {
+        int start = 0;
+        int end = lines.size();
+        while (start < end && lines.get(start).isEmpty()) start++;
+        while (end > start && lines.get(end - 1).isEmpty()) end--;
+        return String.join("\n", lines.subList(start, end));
+    }
+
+    private static long utf8Length(String text) {
+        return text == null ? 0 : text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Override
+    public String statsName() {
+        return "textCompaction";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long in = bytesIn.get();
+        long out = bytesOut.get();
+        stats.put("enabled", enabled);
+        stats.put("jobs", jobs.get());
+        stats.put("bytesIn", in);
+        stats.put("bytesOut", out);
+        stats.put("bytesSaved", in - out);
+        stats.put("estimatedTokensSaved", (in - out) / BYTES_PER_TOKEN);
+        stats.put("repeatedLinesRemoved", repeatedLinesRemoved.get());
+        stats.put("boilerplatePagesDropped", boilerplatePagesDropped.get());
+        return stats;
+    }
+}
@@ -0,0 +1,76 @@
+package com.novae.ocr.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Best-effort PDF page count from the raw file, used to plan page-range batches without a PDF library.
+ * Returns 0 when pages cannot be determined (e.g. page tree inside compressed object streams). The count can also
+ * be low (a partly compressed page tree, or an outline {@code /Count}); it is reported exact only when the page
+ * objects and the page tree's {@code /Count} agree.
+ */
+final class PdfPageCounter {
+
+    private static final Pattern PAGE_OBJECT = Pattern.compile("/Type\\s*/Page(?![A-Za-z])");
+    private static final Pattern PAGES_COUNT = Pattern.compile("/Count\\s+(\\d{1,6})");
+    /** Tail kept between chunks so tokens split across a chunk boundary are still matched once. */
+    private static final int OVERLAP = 64;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private PdfPageCounter() {}
+
+    /**
+     * @param exact false when the two signals disagree or only one was found, so the true count may be higher
+     */
+    record PageCount(int pages, boolean exact) {}
+
+    static PageCount countPages(Path pdfFile) {
+        Counts counts = new Counts();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(pdfFile), CHUNK_SIZE)) {
+            byte[] buf = new byte[CHUNK_SIZE];
+            String carry = "";
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                String text = carry + new String(buf, 0, n, StandardCharsets.ISO_8859_1);
+                int limit = Math.max(0, text.length() - OVERLAP);
+                scan(text, limit, counts);
+                carry = text.substring(limit);
+            }
+            scan(carry, carry.length(), counts);
+        } catch (IOException e) {
+            return new PageCount(0, false);
+        }
+        // Root /Pages node carries the largest /Count, but outlines and incremental updates can inflate either
+        // signal, so take the smaller one when both are present.
+        if (counts.maxPagesCount > 0 && counts.pageObjects > 0) {
+            return new PageCount(Math.min(counts.maxPagesCount, counts.pageObjects),
+                    counts.maxPagesCount == counts.pageObjects);
+        }
+        return new PageCount(Math.max(counts.maxPagesCount, counts.pageObjects), false);
+    }
+
+    /**
+     * Counts matches starting before {@code limit}; later ones are rescanned with the next chunk.
+     */
+    private static void scan(String text, int limit, Counts counts) {
+        Matcher page = PAGE_OBJECT.matcher(text);
+        while (page.find() && page.start() < limit) {
+            counts.pageObjects++;
+        }
+        Matcher count = PAGES_COUNT.matcher(text);
+        while (count.find() && count.start() < limit) {
+            counts.maxPagesCount = Math.max(counts.maxPagesCount, Integer.parseInt(count.group(1)));
+        }
+    }
+
+    private static final class Counts {
+        private int pageObjects;
+        private int maxPagesCount;
+    }
+}
@@ -1,6 +1,12 @@
 package com.novae.ocr.service.impl;
 
+import com.novae.ocr.cache.ExtractionCache;
+import com.novae.ocr.cache.ResolutionCache;
+import com.novae.ocr.catalog.ProductCatalog;
 import com.novae.ocr.constants.OcrConstants;
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.context.ProcessingContext;
+import com.novae.ocr.context.TenantKeys;
 import com.novae.ocr.dto.ExtractedLine;
 import com.novae.ocr.dto.ExtractedQuote;
 import com.novae.ocr.dto.OcrOptionDTO;
@@ -10,10 +16,25 @@ import com.novae.ocr.dto.ProductSuggestion;
 import com.novae.ocr.dto.ResolvedLine;
 import com.novae.ocr.dto.ResolutionResult;
 import com.novae.ocr.dto.ValidationResult;
+import com.novae.ocr.exception.DeadlineExceededException;
 import com.novae.ocr.exception.OcrProcessingException;
+import com.novae.ocr.metrics.StatsProvider;
+import com.novae.ocr.pipeline.PipelineStages;
+import com.novae.ocr.resilience.AdaptiveConcurrencyLimiter;
+import com.novae.ocr.resilience.CircuitBreaker;
+import com.novae.ocr.resilience.CircuitBreakers;
+import com.novae.ocr.resilience.HedgedCall;
+import com.novae.ocr.resilience.McpConcurrencyLimiters;
+import com.novae.ocr.resilience.McpSingleFlight;
+import com.novae.ocr.resilience.RetryPolicies;
+import com.novae.ocr.resilience.RetryPolicy;
+import com.novae.ocr.resilience.SingleFlight;
 import com.novae.ocr.service.AzureOcrService;
+import com.novae.ocr.service.OcrTextCompactor;
 import com.novae.ocr.service.QuoteWorkflowService;
+import com.novae.ocr.service.UploadSpoolService;
 import com.novae.ocr.service.ValidationService;
+import com.novae.ocr.util.BlockingExecutors;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.Logger;
@@ -24,72 +45,219 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
 @Service
-public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
+public class QuoteWorkflowServiceImpl implements QuoteWorkflowService, StatsProvider {
     private static final Logger log = LoggerFactory.getLogger(QuoteWorkflowServiceImpl.class);
     private static final Pattern SIZE_PATTERN = Pattern.compile(
             "\\b\\d+\\s*[xX]\\s*\\d+(?:\\s*\\(\\s*\\d+\\s*\\+\\s*\\d+\\s*\\))?\\b");
     private static final Pattern SALES_CODE_PATTERN = Pattern.compile("^[A-Za-z0-9][A-Za-z0-9-]{2,}$");
 
+    /**
+     * How cache-miss lines are sent to {@code /api/quote/resolve}.
+     */
+    private enum ResolveMode {
+        /** Whole quote in one request. */
+        SINGLE,
+        /** Batches of {@code ocr.resolve.max-lines-per-batch}, one after another. */
+        SEQUENTIAL,
+        /** Batches resolved in parallel waves on {@code resolveExecutor}. */
+        BATCHED
+    }
+
+    /**
+     * How OCR output flows into extract and resolve.
+     */
+    private enum PipelineMode {
+        /** Extract the whole document, then resolve all lines. */
+        SEQUENTIAL,
+        /** Extract page chunks in parallel and resolve each chunk as soon as its lines are extracted. */
+        STREAMING
+    }
+
     private final AzureOcrService azureOcrService;
     private final ValidationService validationService;
+    private final UploadSpoolService uploadSpoolService;
+    private final OcrTextCompactor textCompactor;
     private final RestClient mcpClientRestClient;
+    private final ExtractionCache extractionCache;
+    private final ResolutionCache resolutionCache;
+    private final ProductCatalog productCatalog;
+    private final PipelineStages stages;
+    private final TenantKeys tenantKeys;
     private final int resolveMaxLinesPerBatch;
     private final int resolveParallelism;
-    private final Semaphore resolveRequestLimiter;
+    private final ResolveMode resolveMode;
+    private final AdaptiveConcurrencyLimiter extractLimiter;
+    private final AdaptiveConcurrencyLimiter resolveLimiter;
+    private final CircuitBreaker extractBreaker;
+    private final CircuitBreaker resolveBreaker;
+    private final RetryPolicy extractRetry;
+    private final RetryPolicy resolveRetry;
+    private final SingleFlight<String, ExtractedQuote> extractFlight;
+    private final SingleFlight<String, ResolutionResult> resolveFlight;
+    private final JsonMapper jsonMapper;
+    private final ResolveMicroBatcher resolveMicroBatcher;
+    private final HedgedCall resolveHedge;
+    private final PipelineMode pipelineMode;
+    private final int pipelinePagesPerChunk;
+    private final ExecutorService pipelineExecutor;
+    /** Threads for async jobs once OCR is done; slots of the async stage bound how many run. */
+    private final ExecutorService asyncExecutor;
     private final ExecutorService resolveExecutor;
+    private final Duration jobDeadline;
+    private final boolean virtualThreads;
+    private final AtomicLong collapsedDuplicateLines = new AtomicLong();
 
     public QuoteWorkflowServiceImpl(
             AzureOcrService azureOcrService,
             ValidationService validationService,
+            UploadSpoolService uploadSpoolService,
+            OcrTextCompactor textCompactor,
             @Qualifier("mcpClientRestClient") RestClient mcpClientRestClient,
+            ExtractionCache extractionCache,
+            ResolutionCache resolutionCache,
+            ProductCatalog productCatalog,
+            PipelineStages stages,
+            TenantKeys tenantKeys,
+            McpConcurrencyLimiters concurrencyLimiters,
+            CircuitBreakers circuitBreakers,
+            RetryPolicies retryPolicies,
+            McpSingleFlight singleFlight,
+            JsonMapper jsonMapper,
             @Value("${ocr.resolve.max-lines-per-batch:8}") int resolveMaxLinesPerBatch,
             @Value("${ocr.resolve.parallelism:2}") int resolveParallelism,
-            @Value("${ocr.resolve.max-inflight-requests:1}") int resolveMaxInflightRequests) {
+            @Value("${ocr.resolve.mode:single}") String resolveMode,
+            @Value("${ocr.resolve.micro-batch.enabled:false}") boolean microBatchEnabled,
+            @Value("${ocr.resolve.micro-batch.window-ms:25}") long microBatchWindowMs,
+            @Value("${ocr.resolve.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${ocr.resolve.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${ocr.resolve.hedge.min-delay-ms:2000}") long hedgeMinDelayMs,
+            @Value("${ocr.resolve.hedge.budget-ratio:0.1}") double hedgeBudgetRatio,
+            @Value("${ocr.pipeline.mode:sequential}") String pipelineMode,
+            @Value("${ocr.pipeline.pages-per-chunk:2}") int pipelinePagesPerChunk,
+            @Value("${ocr.pipeline.parallelism:4}") int pipelineParallelism,
+            @Value("${" + OcrConstants.CONFIG_JOB_DEADLINE_SECONDS + ":0}") long jobDeadlineSeconds,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.azureOcrService = azureOcrService;
         this.validationService = validationService;
+        this.uploadSpoolService = uploadSpoolService;
+        this.textCompactor = textCompactor;
         this.mcpClientRestClient = mcpClientRestClient;
+        this.extractionCache = extractionCache;
+        this.resolutionCache = resolutionCache;
+        this.productCatalog = productCatalog;
+        this.stages = stages;
+        this.tenantKeys = tenantKeys;
         this.resolveMaxLinesPerBatch = Math.max(1, resolveMaxLinesPerBatch);
         this.resolveParallelism = Math.max(1, resolveParallelism);
-        this.resolveRequestLimiter = new Semaphore(Math.max(1, resolveMaxInflightRequests), true);
-        this.resolveExecutor = Executors.newFixedThreadPool(this.resolveParallelism);
+        this.extractLimiter = concurrencyLimiters.extract();
+        this.resolveLimiter = concurrencyLimiters.resolve();
+        this.extractBreaker = circuitBreakers.mcpExtract();
+        this.resolveBreaker = circuitBreakers.mcpResolve();
+        this.extractRetry = retryPolicies.mcpExtract();
+        this.resolveRetry = retryPolicies.mcpResolve();
+        this.extractFlight = singleFlight.extract();
+        this.resolveFlight = singleFlight.resolve();
+        this.jsonMapper = jsonMapper;
+        this.resolveMode = ResolveMode.valueOf(resolveMode.trim().toUpperCase(Locale.ROOT));
+        this.virtualThreads = virtualThreads;
+        this.resolveExecutor = BlockingExecutors.bounded("resolve", this.resolveParallelism, virtualThreads);
+        this.resolveMicroBatcher = microBatchEnabled
+                ? new ResolveMicroBatcher(this::executeResolveRequest, this.resolveMaxLinesPerBatch, microBatchWindowMs,
+                        virtualThreads)
+                : null;
+        this.resolveHedge = hedgeEnabled
+                ? new HedgedCall("mcp-resolve", hedgePercentile, hedgeMinDelayMs, hedgeBudgetRatio,
+                        resolveLimiter::saturated, virtualThreads)
+                : null;
+        this.pipelineMode = PipelineMode.valueOf(pipelineMode.trim().toUpperCase(Locale.ROOT));
+        this.pipelinePagesPerChunk = Math.max(1, pipelinePagesPerChunk);
+        // Separate from resolveExecutor: chunk tasks resolve in waves on that pool and must not wait on themselves.
+        this.pipelineExecutor = BlockingExecutors.bounded("pipeline", pipelineParallelism, virtualThreads);
+        this.asyncExecutor = BlockingExecutors.unbounded("ocr-async", virtualThreads);
+        this.jobDeadline = Duration.ofSeconds(Math.max(0L, jobDeadlineSeconds));
     }
 
     @PreDestroy
     void shutdownResolveExecutor() {
         resolveExecutor.shutdown();
+        pipelineExecutor.shutdown();
+        asyncExecutor.shutdown();
+        if (resolveMicroBatcher != null) {
+            resolveMicroBatcher.shutdown();
+        }
+        if (resolveHedge != null) {
+            resolveHedge.shutdown();
+        }
+    }
+
+    @Override
+    public String statsName() {
+        return "quoteWorkflow";
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("resolveMode", resolveMode.name().toLowerCase(Locale.ROOT));
+        stats.put("pipelineMode", pipelineMode.name().toLowerCase(Locale.ROOT));
+        stats.put("threadMode", virtualThreads ? "virtual" : "platform");
+        stats.put("collapsedDuplicateLines", collapsedDuplicateLines.get());
+        if (resolveMicroBatcher != null) {
+            stats.put("resolveMicroBatch", resolveMicroBatcher.stats());
+        }
+        if (resolveHedge != null) {
+            stats.put("resolveHedge", resolveHedge.stats());
+        }
+        return stats;
     }
 
     @Override
     public OcrQuoteDTO processPdf(MultipartFile file) {
-        String ocrText = azureOcrService.extractText(file);
-        return processOcrText(ocrText, currentAuthorizationHeader());
+        return processPdf(file, currentAuthorizationHeader());
     }
 
     @Override
     public OcrQuoteDTO processPdf(MultipartFile file, String authorizationHeader) {
-        String ocrText = azureOcrService.extractText(file);
-        return processOcrText(ocrText, authorizationHeader);
+        Path spoolFile = uploadSpoolService.spool(file);
+        try {
+            return processPdfFile(spoolFile, file.getOriginalFilename(), authorizationHeader);
+        } finally {
+            uploadSpoolService.release(spoolFile);
+        }
     }
 
     @Override
@@ -97,34 +265,345 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
         if (fileBytes == null || fileBytes.length == 0) {
             throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED);
         }
-        try (ByteArrayInputStream in = new ByteArrayInputStream(fileBytes)) {
-            String ocrText = azureOcrService.extractText(in, fileName);
-            return processOcrText(ocrText, authorizationHeader);
-        } catch (Exception e) {
+        Path spoolFile = uploadSpoolService.spool(new ByteArrayInputStream(fileBytes), fileName);
+        try {
+            return processPdfFile(spoolFile, fileName, authorizationHeader);
+        } finally {
+            uploadSpoolService.release(spoolFile);
+        }
+    }
+
+    @Override
+    public OcrQuoteDTO processPdfFile(Path pdfFile, String fileName, String authorizationHeader) {
+        if (pdfFile == null || !Files.isRegularFile(pdfFile)) {
+            throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED);
+        }
+        ProcessingContext ctx = ProcessingContext.create(
+                authorizationHeader, tenantKeys.tenantOf(authorizationHeader), jobDeadline);
+        if (stages.isEnabled()) {
+            try {
+                return processStaged(pdfFile, fileName, ctx).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+        if (usesPages()) {
+            List<String> pages = awaitOcr(azureOcrService.extractTextByPagesAsync(
+                    pdfFile, fileName, ctx.priority(), ctx::remainingNanos), ctx);
+            return pages != null ? processOcrPages(pages, ctx) : deadlineDraft(ctx, "OCR");
+        }
+        String ocrText = awaitOcr(azureOcrService.extractTextAsync(
+                pdfFile, fileName, ctx.priority(), ctx::remainingNanos), ctx);
+        return ocrText != null ? processOcrText(ocrText, ctx) : deadlineDraft(ctx, "OCR");
+    }
+
+    /**
+     * The job deadline starts at submission, so time spent queued for the executor counts against it.
+     */
+    @Override
+    public CompletableFuture<OcrQuoteDTO> processPdfFileAsync(
+            Path pdfFile, String fileName, String authorizationHeader, Priority priority) {
+        if (pdfFile == null || !Files.isRegularFile(pdfFile)) {
+            return CompletableFuture.failedFuture(new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED));
+        }
+        ProcessingContext ctx = ProcessingContext.create(
+                authorizationHeader, tenantKeys.tenantOf(authorizationHeader), jobDeadline, priority);
+        try {
+            return stages.isEnabled()
+                    ? processStaged(pdfFile, fileName, ctx) : processInAsyncStage(pdfFile, fileName, ctx);
+        } catch (OcrProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs the whole job, OCR included, in one slot of the async stage, so queued async jobs are taken by priority
+     * and tenant turn rather than in arrival order.
+     */
+    private CompletableFuture<OcrQuoteDTO> processInAsyncStage(Path pdfFile, String fileName, ProcessingContext ctx) {
+        long startNs = System.nanoTime();
+        CompletableFuture<OcrQuoteDTO> quote = new CompletableFuture<>();
+        stages.async().submit(ctx, () -> {
+            if (usesPages()) {
+                return withOcrDeadline(azureOcrService.extractTextByPagesAsync(
+                        pdfFile, fileName, ctx.priority(), ctx::remainingNanos), ctx)
+                        .thenApplyAsync(pages -> pages != null
+                                ? processOcrPages(pages, ctx) : deadlineDraft(ctx, "OCR"), asyncExecutor)
+                        .thenAccept(quote::complete);
+            }
+            return withOcrDeadline(azureOcrService.extractTextAsync(
+                    pdfFile, fileName, ctx.priority(), ctx::remainingNanos), ctx)
+                    .thenApplyAsync(ocrText -> ocrText != null
+                            ? processOcrText(ocrText, ctx) : deadlineDraft(ctx, "OCR"), asyncExecutor)
+                    .thenAccept(quote::complete);
+        }, quote);
+        quote.whenComplete((dto, error) -> stages.recordJob(ctx.tenant(), System.nanoTime() - startNs));
+        return quote;
+    }
+
+    /**
+     * Runs the job through the OCR, extract, resolve and finish stages. Each stage hands its output to the next and
+     * keeps its slot until the next stage accepted it.
+     *
+     * @throws com.novae.ocr.exception.StageOverloadedException if the OCR stage cannot take another job
+     */
+    private CompletableFuture<OcrQuoteDTO> processStaged(Path pdfFile, String fileName, ProcessingContext ctx) {
+        long startNs = System.nanoTime();
+        CompletableFuture<OcrQuoteDTO> quote = new CompletableFuture<>();
+        stages.ocr().submit(ctx, () -> ocrPagesAsync(pdfFile, fileName, ctx)
+                .thenCompose(pages -> pages != null
+                        ? toExtractStage(pages, ctx, quote)
+                        : toFinishStage(() -> deadlineDraft(ctx, "OCR"), ctx, quote)), quote);
+        quote.whenComplete((dto, error) -> stages.recordJob(ctx.tenant(), System.nanoTime() - startNs));
+        return quote;
+    }
+
+    /**
+     * OCR output as page texts; a single element when pages are not needed. Null once the deadline ran out.
+     */
+    private CompletableFuture<List<String>> ocrPagesAsync(Path pdfFile, String fileName, ProcessingContext ctx) {
+        if (usesPages()) {
+            return withOcrDeadline(azureOcrService.extractTextByPagesAsync(
+                    pdfFile, fileName, ctx.priority(), ctx::remainingNanos), ctx);
+        }
+        return withOcrDeadline(azureOcrService.extractTextAsync(
+                pdfFile, fileName, ctx.priority(), ctx::remainingNanos), ctx)
+                .thenApply(ocrText -> ocrText != null ? List.of(ocrText) : null);
+    }
+
+    /**
+     * In streaming mode the extract stage also resolves, since chunk resolves overlap the extraction of later chunks.
+     */
+    private CompletableFuture<Void> toExtractStage(List<String> pages, ProcessingContext ctx,
+                                                   CompletableFuture<OcrQuoteDTO> quote) {
+        return stages.extract().handoff(ctx, () -> {
+            if (ctx.expired()) {
+                return toFinishStage(() -> deadlineDraft(ctx, "extract"), ctx, quote);
+            }
+            List<String> compacted = textCompactor.compact(pages);
+            List<String> chunks = pipelineMode == PipelineMode.STREAMING
+                    ? pageChunks(compacted, pipelinePagesPerChunk) : List.of();
+            if (chunks.size() > 1) {
+                StreamedQuote streamed = streamChunks(chunks, compacted.size(), ctx);
+                return toFinishStage(() -> buildQuote(streamed.extracted(), streamed.resolved(), ctx), ctx, quote);
+            }
+            ExtractedQuote extracted;
+            try {
+                extracted = extractQuote(String.join("\n", compacted), ctx);
+            } catch (RuntimeException e) {
+                if (!ctx.expired()) {
+                    throw e;
+                }
+                return toFinishStage(() -> deadlineDraft(ctx, "extract"), ctx, quote);
+            }
+            return toResolveStage(extracted != null ? extracted : new ExtractedQuote(), ctx, quote);
+        }, quote);
+    }
+
+    private CompletableFuture<Void> toResolveStage(ExtractedQuote extracted, ProcessingContext ctx,
+                                                   CompletableFuture<OcrQuoteDTO> quote) {
+        return stages.resolve().handoff(ctx, () -> {
+            ResolutionResult resolved = resolveQuote(extracted, ctx);
+            return toFinishStage(() -> buildQuote(extracted, resolved, ctx), ctx, quote);
+        }, quote);
+    }
+
+    private CompletableFuture<Void> toFinishStage(Supplier<OcrQuoteDTO> build, ProcessingContext ctx,
+                                                  CompletableFuture<OcrQuoteDTO> quote) {
+        return stages.finish().handoff(ctx, () -> {
+            quote.complete(build.get());
+            return CompletableFuture.completedFuture(null);
+        }, quote);
+    }
+
+    /**
+     * Waits for OCR within the job deadline.
+     *
+     * @return OCR output, or null if the deadline ran out first
+     */
+    private static <T> T awaitOcr(CompletableFuture<T> ocr, ProcessingContext ctx) {
+        try {
+            return ctx.hasDeadline() ? ocr.get(ctx.remainingNanos(), TimeUnit.NANOSECONDS) : ocr.get();
+        } catch (TimeoutException e) {
+            ocr.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OcrProcessingException ocrException) {
+                throw ocrException;
+            }
+            throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, e.getCause());
         }
     }
 
+    /**
+     * Completes with null instead of OCR output once the job deadline runs out.
+     */
+    private static <T> CompletableFuture<T> withOcrDeadline(CompletableFuture<T> ocr, ProcessingContext ctx) {
+        return ctx.hasDeadline() ? ocr.completeOnTimeout(null, ctx.remainingNanos(), TimeUnit.NANOSECONDS) : ocr;
+    }
+
     @Override
     public OcrQuoteDTO processPdfByPath(String filePath) {
-        try (var is = java.nio.file.Files.newInputStream(java.nio.file.Paths.get(filePath))) {
-            String ocrText = azureOcrService.extractText(is, filePath);
-            return processOcrText(ocrText, currentAuthorizationHeader());
+        try {
+            return processPdfFile(Paths.get(filePath), filePath, currentAuthorizationHeader());
+        } catch (OcrProcessingException e) {
+            throw e;
         } catch (Exception e) {
-            throw new com.novae.ocr.exception.OcrProcessingException(
-                    OcrConstants.ERROR_OCR_FAILED, e);
+            throw new OcrProcessingException(OcrConstants.ERROR_OCR_FAILED, e);
         }
     }
 
-    private OcrQuoteDTO processOcrText(String ocrText, String authorizationHeader) {
-        ExtractedQuote extracted = extractQuote(ocrText, authorizationHeader);
+    /**
+     * Page texts are needed for the streaming pipeline and for compaction (running headers are found per page).
+     */
+    private boolean usesPages() {
+        return pipelineMode == PipelineMode.STREAMING || textCompactor.isEnabled();
+    }
+
+    private OcrQuoteDTO processOcrPages(List<String> pages, ProcessingContext ctx) {
+        List<String> compacted = textCompactor.compact(pages);
+        return pipelineMode == PipelineMode.STREAMING
+                ? processPages(compacted, ctx)
+                : processOcrText(String.join("\n", compacted), ctx);
+    }
+
+    private OcrQuoteDTO processOcrText(String ocrText, ProcessingContext ctx) {
+        ExtractedQuote extracted;
+        try {
+            extracted = extractQuote(ocrText, ctx);
+        } catch (RuntimeException e) {
+            if (!ctx.expired()) {
+                throw e;
+            }
+            return deadlineDraft(ctx, "extract");
+        }
 
         if (extracted == null) {
             extracted = new ExtractedQuote();
         }
 
-        ResolutionResult resolved = resolveQuote(extracted, authorizationHeader);
+        ResolutionResult resolved = resolveQuote(extracted, ctx);
+        return buildQuote(extracted, resolved, ctx);
+    }
+
+    /**
+     * Empty DRAFT returned when the deadline runs out before any lines were extracted.
+     */
+    private OcrQuoteDTO deadlineDraft(ProcessingContext ctx, String stage) {
+        log.warn("Processing deadline exceeded during {}; returning empty draft", stage);
+        ctx.markDeadlineExceeded();
+        return buildQuote(new ExtractedQuote(), new ResolutionResult(), ctx);
+    }
 
+    /**
+     * Streaming pipeline: page chunks are extracted in parallel and each chunk is resolved as soon as its lines
+     * (and the first chunk, which carries the quote header) are available, so extraction of later pages overlaps
+     * resolution of earlier ones. Chunk results are merged back in page order.
+     */
+    private OcrQuoteDTO processPages(List<String> pages, ProcessingContext ctx) {
+        List<String> chunks = pageChunks(pages, pipelinePagesPerChunk);
+        if (chunks.size() <= 1) {
+            return processOcrText(String.join("\n", pages), ctx);
+        }
+        StreamedQuote streamed = streamChunks(chunks, pages.size(), ctx);
+        return buildQuote(streamed.extracted(), streamed.resolved(), ctx);
+    }
+
+    private StreamedQuote streamChunks(List<String> chunks, int pageCount, ProcessingContext ctx) {
+        long startNs = System.nanoTime();
+        List<CompletableFuture<ExtractedQuote>> extracts = new ArrayList<>(chunks.size());
+        for (String chunk : chunks) {
+            extracts.add(CompletableFuture.supplyAsync(() -> extractQuote(chunk, ctx), pipelineExecutor)
+                    .handle((quote, ex) -> {
+                        if (ex == null) {
+                            return quote != null ? quote : new ExtractedQuote();
+                        }
+                        if (!ctx.expired()) {
+                            throw ex instanceof CompletionException ce ? ce : new CompletionException(ex);
+                        }
+                        // Lines of this chunk are lost; the quote is returned as a draft.
+                        ctx.markDeadlineExceeded();
+                        return new ExtractedQuote();
+                    }));
+        }
+        CompletableFuture<ExtractedQuote> header = extracts.get(0);
+        List<CompletableFuture<ExtractedQuote>> chunkQuotes = new ArrayList<>(chunks.size());
+        List<CompletableFuture<ResolutionResult>> resolves = new ArrayList<>(chunks.size());
+        for (CompletableFuture<ExtractedQuote> extract : extracts) {
+            CompletableFuture<ExtractedQuote> chunkQuote = extract.thenCombine(header, QuoteWorkflowServiceImpl::withHeader);
+            chunkQuotes.add(chunkQuote);
+            resolves.add(chunkQuote.thenApplyAsync(quote -> resolveQuote(quote, ctx), pipelineExecutor));
+        }
+        try {
+            CompletableFuture.allOf(resolves.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+
+        List<ExtractedQuote> quotes = new ArrayList<>(chunkQuotes.size());
+        List<ResolutionResult> partials = new ArrayList<>(resolves.size());
+        for (int i = 0; i < chunkQuotes.size(); i++) {
+            quotes.add(chunkQuotes.get(i).join());
+            partials.add(resolves.get(i).join());
+        }
+        ExtractedQuote extracted = mergeExtractedChunks(quotes);
+        ResolutionResult resolved = mergeResolutionResults(alignToBatches(partials, quotes), extracted.getLines().size());
+        log.info("Streaming pipeline processed {} pages in {} chunks ({} lines) in {} ms", pageCount, chunks.size(),
+                extracted.getLines().size(), (System.nanoTime() - startNs) / 1_000_000);
+        return new StreamedQuote(extracted, resolved);
+    }
+
+    private static List<String> pageChunks(List<String> pages, int pagesPerChunk) {
+        List<String> chunks = new ArrayList<>();
+        if (pages == null) {
+            return chunks;
+        }
+        for (int i = 0; i < pages.size(); i += pagesPerChunk) {
+            String chunk = String.join("\n", pages.subList(i, Math.min(pages.size(), i + pagesPerChunk)));
+            if (!chunk.isBlank()) {
+                chunks.add(chunk);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Vendor, document type and PO number usually appear only on the first page; later chunks inherit them so
+     * their lines resolve with the same vendor context.
+     */
+    private static ExtractedQuote withHeader(ExtractedQuote chunk, ExtractedQuote header) {
+        if (chunk == header) {
+            return chunk;
+        }
+        if (isBlank(chunk.getVendorName())) chunk.setVendorName(header.getVendorName());
+        if (isBlank(chunk.getDocumentType())) chunk.setDocumentType(header.getDocumentType());
+        if (isBlank(chunk.getPoNumber())) chunk.setPoNumber(header.getPoNumber());
+        return chunk;
+    }
+
+    /**
+     * Lines in page order; header fields from the first chunk that has them, totals from the last.
+     */
+    private static ExtractedQuote mergeExtractedChunks(List<ExtractedQuote> chunks) {
+        ExtractedQuote merged = new ExtractedQuote();
+        List<ExtractedLine> lines = new ArrayList<>();
+        for (ExtractedQuote chunk : chunks) {
+            if (isBlank(merged.getPoNumber())) merged.setPoNumber(chunk.getPoNumber());
+            if (isBlank(merged.getVendorName())) merged.setVendorName(chunk.getVendorName());
+            if (isBlank(merged.getDocumentType())) merged.setDocumentType(chunk.getDocumentType());
+            if (chunk.getSubtotal() != null) merged.setSubtotal(chunk.getSubtotal());
+            if (chunk.getTax() != null) merged.setTax(chunk.getTax());
+            if (chunk.getTotal() != null) merged.setTotal(chunk.getTotal());
+            if (chunk.getLines() != null) lines.addAll(chunk.getLines());
+        }
+        merged.setLines(lines);
+        return merged;
+    }
+
+    private OcrQuoteDTO buildQuote(ExtractedQuote extracted, ResolutionResult resolved, ProcessingContext ctx) {
         if (resolved == null) {
             resolved = new ResolutionResult();
         }
@@ -134,7 +613,8 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
         List<String> missingFields = validationService.getMissingFieldPaths(extracted, resolved);
 
         OcrQuoteDTO dto = new OcrQuoteDTO();
-        dto.setStatus(validation.isDraft() ? OcrConstants.STATUS_DRAFT : OcrConstants.STATUS_VALIDATED);
+        boolean draft = validation.isDraft() || ctx.deadlineExceeded();
+        dto.setStatus(draft ? OcrConstants.STATUS_DRAFT : OcrConstants.STATUS_VALIDATED);
         dto.setTotalRetailPrice(validation.getComputedTotal());
         dto.setNotes(validation.getReasons().isEmpty() ? null : String.join("; ", validation.getReasons()));
         dto.setPoNumber(extracted.getPoNumber());
@@ -144,6 +624,7 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
         List<String> warnings = new ArrayList<>();
         if (validation.getReasons() != null) warnings.addAll(validation.getReasons());
         if (resolved.getWarnings() != null) warnings.addAll(resolved.getWarnings());
+        if (ctx.deadlineExceeded()) warnings.add(OcrConstants.ERROR_DEADLINE_EXCEEDED);
         dto.setWarnings(warnings);
         List<String> allMissing = new ArrayList<>();
         if (missingFields != null) allMissing.addAll(missingFields);
@@ -153,59 +634,267 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
         return dto;
     }
 
-    private ExtractedQuote extractQuote(String ocrText, String authorization) {
+    private ExtractedQuote extractQuote(String ocrText, ProcessingContext ctx) {
+        String cacheKey = extractionCache.key(ocrText);
+        Optional<ExtractedQuote> cached = extractionCache.get(cacheKey);
+        if (cached.isPresent()) {
+            log.info("Extract served from cache ({} lines)", cached.get().getLines().size());
+            return cached.get();
+        }
+        ExtractedQuote extracted = executeExtractQuote(ocrText, ctx);
+        extractionCache.put(cacheKey, extracted);
+        return extracted;
+    }
+
+    /**
+     * Identical concurrent extract requests (same text and authorization) share one MCP call. Transient failures
+     * are retried per {@code ocr.retry.extract.*}; a retry joins whatever flight is then in progress.
+     */
+    private ExtractedQuote executeExtractQuote(String ocrText, ProcessingContext ctx) {
         try {
+            String flightKey = McpSingleFlight.key(OcrConstants.MCP_CLIENT_EXTRACT, ctx.authorization(), ocrText);
+            return extractRetry.execute(
+                    () -> extractFlight.execute(flightKey, () -> callExtract(ocrText, ctx), ctx.remainingNanos()),
+                    mcpRetryClassifier(ctx), ctx::remainingNanos);
+        } catch (RestClientException e) {
+            throw toMcpException(OcrConstants.ERROR_EXTRACTION_FAILED, OcrConstants.MCP_CLIENT_EXTRACT, e);
+        }
+    }
+
+    private ExtractedQuote callExtract(String ocrText, ProcessingContext ctx) {
+        try (CircuitBreaker.Call breakerCall = extractBreaker.acquire();
+             AdaptiveConcurrencyLimiter.Permit permit = extractLimiter.acquire(ctx.priority(), ctx.remainingNanos())) {
             var extractRequest = mcpClientRestClient.post()
                     .uri(OcrConstants.MCP_CLIENT_EXTRACT)
                     .contentType(MediaType.TEXT_PLAIN)
                     .accept(MediaType.APPLICATION_JSON);
-            if (authorization != null && !authorization.isBlank()) {
-                extractRequest = extractRequest.header("Authorization", authorization);
+            if (!isBlank(ctx.authorization())) {
+                extractRequest = extractRequest.header("Authorization", ctx.authorization());
             }
-            return extractRequest
+            var request = extractRequest;
+            return withPermit(permit, breakerCall, ctx, () -> request
                     .body(ocrText)
                     .retrieve()
-                    .body(ExtractedQuote.class);
-        } catch (RestClientException e) {
-            throw toMcpException(OcrConstants.ERROR_EXTRACTION_FAILED, OcrConstants.MCP_CLIENT_EXTRACT, e);
+                    .body(ExtractedQuote.class));
         }
     }
 
-    private ResolutionResult resolveQuote(ExtractedQuote extracted, String authorization) {
+    /**
+     * Serves lines from {@link ResolutionCache} or confident {@link ProductCatalog} matches, resolves only the
+     * remaining lines through MCP and merges all back in original line order. Catalog matches are not cached so a
+     * catalog refresh takes effect immediately.
+     */
+    private ResolutionResult resolveQuote(ExtractedQuote extracted, ProcessingContext ctx) {
         long startNs = System.nanoTime();
-        ResolutionResult result = resolveQuoteWithRetry(extracted, authorization);
+        List<ExtractedLine> lines = extracted.getLines() != null ? extracted.getLines() : Collections.emptyList();
+        ResolutionCache.Key[] keys = new ResolutionCache.Key[lines.size()];
+        ResolvedLine[] resolvedByIndex = new ResolvedLine[lines.size()];
+        List<Integer> missIndexes = new ArrayList<>();
+        int cacheHits = 0;
+        int catalogHits = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            ExtractedLine line = lines.get(i);
+            if (line == null) {
+                missIndexes.add(i);
+                continue;
+            }
+            keys[i] = resolutionCache.key(ctx.tenant(), line, extracted.getVendorName());
+            Optional<ResolvedLine> cached = resolutionCache.get(keys[i]);
+            if (cached.isPresent()) {
+                resolvedByIndex[i] = cached.get();
+                cacheHits++;
+                continue;
+            }
+            Optional<ResolvedLine> fromCatalog = productCatalog.preResolve(line);
+            if (fromCatalog.isPresent()) {
+                resolvedByIndex[i] = fromCatalog.get();
+                catalogHits++;
+            } else {
+                missIndexes.add(i);
+            }
+        }
+        int preResolved = cacheHits + catalogHits;
+        Optional<String> cachedVendorId = resolutionCache.vendorId(ctx.tenant(), extracted.getVendorName());
+        boolean vendorKnown = cachedVendorId.isPresent() || isBlank(extracted.getVendorName());
+
+        ResolutionResult fresh = null;
+        if (!missIndexes.isEmpty() || lines.isEmpty() || !vendorKnown) {
+            ExtractedQuote misses = preResolved == 0 ? extracted : subQuote(extracted, missIndexes);
+            fresh = resolveUniqueLines(misses, ctx);
+            if (fresh != null) {
+                List<ResolvedLine> freshLines = fresh.getLines() != null ? fresh.getLines() : Collections.emptyList();
+                for (int j = 0; j < missIndexes.size() && j < freshLines.size(); j++) {
+                    int index = missIndexes.get(j);
+                    resolvedByIndex[index] = freshLines.get(j);
+                    if (keys[index] != null) {
+                        resolutionCache.put(keys[index], freshLines.get(j));
+                    }
+                }
+                resolutionCache.putVendorId(ctx.tenant(), extracted.getVendorName(), fresh.getResolvedVendorId());
+            }
+        }
+
+        ResolutionResult result = preResolved == 0 && fresh != null
+                ? fresh
+                : assembleResolution(lines, resolvedByIndex, fresh, missIndexes, cachedVendorId.orElse(null));
         long elapsedMs = (System.nanoTime() - startNs) / 1_000_000;
-        int lineCount = extracted != null && extracted.getLines() != null ? extracted.getLines().size() : 0;
-        log.info("Resolve completed in {} ms for {} lines (single-request mode)", elapsedMs, lineCount);
+        log.info("Resolve completed in {} ms for {} lines ({} from cache, {} from catalog, {} mode)",
+                elapsedMs, lines.size(), cacheHits, catalogHits, resolveMode.name().toLowerCase(Locale.ROOT));
         return result;
     }
 
-    private List<ResolutionResult> resolveWave(List<ExtractedQuote> wave, String authorization, int startBatchIndex) {
+    /**
+     * Resolves each distinct product configuration of {@code quote} once and fans the results back out to its
+     * duplicates, which keep their own quantity, price and color.
+     */
+    private ResolutionResult resolveUniqueLines(ExtractedQuote quote, ProcessingContext ctx) {
+        List<ExtractedLine> lines = quote.getLines() != null ? quote.getLines() : Collections.emptyList();
+        DuplicateLines duplicates = DuplicateLines.of(lines, quote.getVendorName());
+        if (!duplicates.hasDuplicates()) {
+            return resolveLines(quote, ctx);
+        }
+        collapsedDuplicateLines.addAndGet(duplicates.duplicateCount());
+        log.info("Collapsed {} duplicate lines; resolving {} of {}", duplicates.duplicateCount(),
+                duplicates.uniqueIndexes().size(), lines.size());
+        return duplicates.fanOut(resolveLines(subQuote(quote, duplicates.uniqueIndexes()), ctx));
+    }
+
+    /**
+     * Builds a result in original line order from per-index lines; gaps become unresolved placeholders.
+     * Line paths in missing fields of {@code fresh} are mapped back from miss-batch to original indexes. Warnings and
+     * missing fields only come from {@code fresh}; they are not cached, so a fully cached quote has none.
+     */
+    private static ResolutionResult assembleResolution(List<ExtractedLine> lines, ResolvedLine[] resolvedByIndex,
+                                                       ResolutionResult fresh, List<Integer> freshIndexes,
+                                                       String fallbackVendorId) {
+        ResolutionResult merged = new ResolutionResult();
+        List<ResolvedLine> mergedLines = new ArrayList<>(lines.size());
+        double confidenceTotal = 0.0;
+        int cachedCount = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            ResolvedLine line = resolvedByIndex[i];
+            if (line == null) {
+                line = unresolvedPlaceholder(lines.get(i));
+            }
+            mergedLines.add(line);
+        }
+        Set<Integer> freshIndexSet = new HashSet<>(freshIndexes);
+        for (int i = 0; i < lines.size(); i++) {
+            if (!freshIndexSet.contains(i)) {
+                confidenceTotal += mergedLines.get(i).getConfidence();
+                cachedCount++;
+            }
+        }
+        int freshCount = freshIndexes.size();
+        if (fresh != null) {
+            confidenceTotal += fresh.getOverallConfidence() * freshCount;
+        }
+        int total = cachedCount + (fresh != null ? freshCount : 0);
+        merged.setLines(mergedLines);
+        merged.setOverallConfidence(total > 0 ? confidenceTotal / total : 0.0);
+        String vendorId = fresh != null && !isBlank(fresh.getResolvedVendorId())
+                ? fresh.getResolvedVendorId() : fallbackVendorId;
+        merged.setResolvedVendorId(vendorId);
+        if (fresh != null) {
+            merged.setWarnings(new ArrayList<>(fresh.getWarnings()));
+            merged.setMissingFields(remapLinePaths(fresh.getMissingFields(), freshIndexes));
+        }
+        return merged;
+    }
+
+    private static ExtractedQuote subQuote(ExtractedQuote extracted, List<Integer> indexes) {
+        ExtractedQuote sub = new ExtractedQuote();
+        sub.setPoNumber(extracted.getPoNumber());
+        sub.setVendorName(extracted.getVendorName());
+        sub.setSubtotal(extracted.getSubtotal());
+        sub.setTax(extracted.getTax());
+        sub.setTotal(extracted.getTotal());
+        sub.setDocumentType(extracted.getDocumentType());
+        List<ExtractedLine> lines = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            lines.add(extracted.getLines().get(index));
+        }
+        sub.setLines(lines);
+        return sub;
+    }
+
+    /**
+     * Unresolved stand-in that keeps the extracted color so grid mapping behaves as for a missing line.
+     */
+    private static ResolvedLine unresolvedPlaceholder(ExtractedLine ext) {
+        ResolvedLine placeholder = new ResolvedLine();
+        placeholder.setNormalizedColor(ext != null ? ext.getColor() : null);
+        return placeholder;
+    }
+
+    /**
+     * Rewrites {@code lines[j]} in field paths to {@code lines[indexMap[j]]}.
+     */
+    private static List<String> remapLinePaths(List<String> paths, List<Integer> indexMap) {
+        return LinePaths.remap(paths, local -> local < indexMap.size() ? indexMap.get(local) : local);
+    }
+
+    /**
+     * Resolves lines according to {@code ocr.resolve.mode}. In batched modes each partial result is aligned
+     * to its batch so merged lines keep the request order even if a batch returns too few lines.
+     */
+    private ResolutionResult resolveLines(ExtractedQuote quote, ProcessingContext ctx) {
+        int lineCount = quote.getLines() != null ? quote.getLines().size() : 0;
+        if (resolveMode == ResolveMode.SINGLE || lineCount <= resolveMaxLinesPerBatch) {
+            return resolveWithinDeadline(quote, ctx);
+        }
+        List<ExtractedQuote> batches = partitionExtractedQuote(quote, resolveMaxLinesPerBatch);
+        if (resolveMode == ResolveMode.SEQUENTIAL) {
+            return resolveBatchesSequentially(batches, ctx);
+        }
+        List<ResolutionResult> partials = new ArrayList<>(batches.size());
+        for (int start = 0; start < batches.size(); ) {
+            if (ctx.expired()) {
+                partials.addAll(Collections.nCopies(batches.size() - start, null));
+                break;
+            }
+            // Larger waves would only park executor threads on the adaptive limit.
+            int waveSize = Math.max(1, Math.min(resolveParallelism, resolveLimiter.currentLimit()));
+            int end = Math.min(batches.size(), start + waveSize);
+            partials.addAll(resolveWave(batches.subList(start, end), ctx, start));
+            start = end;
+        }
+        for (int i = 0; i < partials.size(); i++) {
+            if (partials.get(i) == null) {
+                if (!ctx.expired()) {
+                    log.warn("Retrying failed resolve batch {} individually", i + 1);
+                }
+                partials.set(i, resolveWithinDeadline(batches.get(i), ctx));
+            }
+        }
+        return mergeResolutionResults(alignToBatches(partials, batches), lineCount);
+    }
+
+    /**
+     * Resolves one wave of batches concurrently; a failed batch yields null so it can be retried on its own.
+     */
+    private List<ResolutionResult> resolveWave(List<ExtractedQuote> wave, ProcessingContext ctx, int startBatchIndex) {
         List<CompletableFuture<ResolutionResult>> futures = new ArrayList<>();
         for (int i = 0; i < wave.size(); i++) {
             ExtractedQuote batch = wave.get(i);
             final int batchIndex = startBatchIndex + i + 1;
             futures.add(CompletableFuture.supplyAsync(
-                    () -> resolveBatchWithTiming(batch, authorization, batchIndex), resolveExecutor));
+                            () -> resolveBatchWithTiming(batch, ctx, batchIndex), resolveExecutor)
+                    .exceptionally(ex -> null));
         }
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        } catch (CompletionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof RuntimeException runtimeException) {
-                throw runtimeException;
-            }
-            throw new OcrProcessingException(OcrConstants.ERROR_RESOLUTION_FAILED, e);
+        List<ResolutionResult> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<ResolutionResult> future : futures) {
+            results.add(future.join());
         }
-        return futures.stream().map(CompletableFuture::join).toList();
+        return results;
     }
 
-    private ResolutionResult resolveBatchWithTiming(ExtractedQuote batch, String authorization, int batchIndex) {
+    private ResolutionResult resolveBatchWithTiming(ExtractedQuote batch, ProcessingContext ctx, int batchIndex) {
         int lineCount = batch.getLines() != null ? batch.getLines().size() : 0;
         long startNs = System.nanoTime();
         log.info("Resolve batch {} started (lines={})", batchIndex, lineCount);
         try {
-            ResolutionResult result = resolveQuoteWithoutRetry(batch, authorization);
+            ResolutionResult result = resolveQuoteWithoutRetry(batch, ctx);
             long elapsedMs = (System.nanoTime() - startNs) / 1_000_000;
             log.info("Resolve batch {} succeeded in {} ms", batchIndex, elapsedMs);
             return result;
@@ -216,37 +905,59 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
         }
     }
 
-    private ResolutionResult resolveBatchesSequentially(List<ExtractedQuote> batches, String authorization) {
+    private ResolutionResult resolveBatchesSequentially(List<ExtractedQuote> batches, ProcessingContext ctx) {
         List<ResolutionResult> partials = new ArrayList<>();
         for (ExtractedQuote batch : batches) {
-            partials.add(resolveQuoteWithRetry(batch, authorization));
+            partials.add(resolveWithinDeadline(batch, ctx));
         }
-        return mergeResolutionResults(partials, batches.stream()
+        return mergeResolutionResults(alignToBatches(partials, batches), batches.stream()
                 .map(ExtractedQuote::getLines)
                 .filter(java.util.Objects::nonNull)
                 .mapToInt(List::size)
                 .sum());
     }
 
-    private ResolutionResult resolveQuoteWithRetry(ExtractedQuote extracted, String authorization) {
-        try {
-            return executeResolveQuote(extracted, authorization);
-        } catch (RestClientException first) {
-            if (isReadTimeout(first)) {
-                log.warn("MCP resolve timed out, retrying once endpoint={}", OcrConstants.MCP_CLIENT_RESOLVE);
-                try {
-                    return executeResolveQuote(extracted, authorization);
-                } catch (RestClientException second) {
-                    throw toMcpException(OcrConstants.ERROR_RESOLUTION_FAILED, OcrConstants.MCP_CLIENT_RESOLVE, second);
+    /**
+     * Resolves a batch; once the job deadline has run out (before or during the call) its lines come back as
+     * placeholders flagged {@link OcrConstants#ROW_FLAG_DEADLINE_EXCEEDED} instead of failing the quote.
+     */
+    private ResolutionResult resolveWithinDeadline(ExtractedQuote batch, ProcessingContext ctx) {
+        if (!ctx.expired()) {
+            try {
+                return resolveQuoteWithRetry(batch, ctx);
+            } catch (RuntimeException e) {
+                if (!ctx.expired()) {
+                    throw e;
                 }
             }
-            throw toMcpException(OcrConstants.ERROR_RESOLUTION_FAILED, OcrConstants.MCP_CLIENT_RESOLVE, first);
+        }
+        ctx.markDeadlineExceeded();
+        ResolutionResult partial = new ResolutionResult();
+        List<ResolvedLine> lines = new ArrayList<>();
+        for (ExtractedLine line : batch.getLines()) {
+            ResolvedLine placeholder = unresolvedPlaceholder(line);
+            placeholder.setRowFlags(new ArrayList<>(List.of(OcrConstants.ROW_FLAG_DEADLINE_EXCEEDED)));
+            lines.add(placeholder);
+        }
+        partial.setLines(lines);
+        return partial;
+    }
+
+    /**
+     * Retries transient failures per {@code ocr.retry.resolve.*}.
+     */
+    private ResolutionResult resolveQuoteWithRetry(ExtractedQuote extracted, ProcessingContext ctx) {
+        try {
+            return resolveRetry.execute(() -> executeResolveQuote(extracted, ctx), mcpRetryClassifier(ctx),
+                    ctx::remainingNanos);
+        } catch (RestClientException e) {
+            throw toMcpException(OcrConstants.ERROR_RESOLUTION_FAILED, OcrConstants.MCP_CLIENT_RESOLVE, e);
         }
     }
 
-    private ResolutionResult resolveQuoteWithoutRetry(ExtractedQuote extracted, String authorization) {
+    private ResolutionResult resolveQuoteWithoutRetry(ExtractedQuote extracted, ProcessingContext ctx) {
         try {
-            return executeResolveQuote(extracted, authorization);
+            return executeResolveQuote(extracted, ctx);
         } catch (RestClientException exception) {
             throw toMcpException(OcrConstants.ERROR_RESOLUTION_FAILED, OcrConstants.MCP_CLIENT_RESOLVE, exception);
         }
@@ -270,6 +981,35 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
         return batches;
     }
 
+    /**
+     * Pads or trims each partial to its batch's line count and offsets its {@code lines[i]} paths, so that
+     * concatenating partials in batch order lines up with the unpartitioned quote.
+     */
+    private static List<ResolutionResult> alignToBatches(List<ResolutionResult> partials, List<ExtractedQuote> batches) {
+        List<ResolutionResult> aligned = new ArrayList<>(partials.size());
+        int offset = 0;
+        for (int i = 0; i < partials.size(); i++) {
+            ResolutionResult partial = partials.get(i) != null ? partials.get(i) : new ResolutionResult();
+            List<ExtractedLine> batchLines = batches.get(i).getLines();
+            List<ResolvedLine> lines = new ArrayList<>(batchLines.size());
+            List<Integer> indexMap = new ArrayList<>(batchLines.size());
+            for (int j = 0; j < batchLines.size(); j++) {
+                ResolvedLine line = j < partial.getLines().size() ? partial.getLines().get(j) : null;
+                lines.add(line != null ? line : unresolvedPlaceholder(batchLines.get(j)));
+                indexMap.add(offset + j);
+            }
+            if (partial.getLines().size() != batchLines.size()) {
+                log.warn("Resolve batch {} returned {} lines for {} requested", i + 1,
+                        partial.getLines().size(), batchLines.size());
+            }
+            partial.setLines(lines);
+            partial.setMissingFields(remapLinePaths(partial.getMissingFields(), indexMap));
+            aligned.add(partial);
+            offset += batchLines.size();
+        }
+        return aligned;
+    }
+
     private static ResolutionResult mergeResolutionResults(List<ResolutionResult> partials, int totalLines) {
         ResolutionResult merged = new ResolutionResult();
         List<ResolvedLine> mergedLines = new ArrayList<>();
@@ -321,33 +1061,112 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
         return merged;
     }
 
-    private ResolutionResult executeResolveQuote(ExtractedQuote extracted, String authorization) {
-        long waitStartNs = System.nanoTime();
-        try {
-            resolveRequestLimiter.acquire();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new OcrProcessingException(OcrConstants.ERROR_RESOLUTION_FAILED, e);
-        }
-        long waitedMs = (System.nanoTime() - waitStartNs) / 1_000_000;
-        if (waitedMs > 0) {
-            log.info("Resolve request waited {} ms for inflight slot", waitedMs);
+    /**
+     * Small quotes go through the micro-batcher when enabled, so concurrent quotes of one vendor share requests.
+     */
+    private ResolutionResult executeResolveQuote(ExtractedQuote extracted, ProcessingContext ctx) {
+        if (resolveMicroBatcher != null && resolveMicroBatcher.accepts(extracted)) {
+            return resolveMicroBatcher.resolve(extracted, ctx);
         }
-        try {
+        return executeResolveRequest(extracted, ctx);
+    }
+
+    /**
+     * Identical concurrent resolve payloads (same serialized quote and ctx) share one MCP call, so
+     * followers do not take a limiter slot. The payload is serialized once for both the key and the body. With
+     * hedging enabled, a slow call gets one duplicate (inside the flight, so it is not coalesced with itself).
+     */
+    private ResolutionResult executeResolveRequest(ExtractedQuote extracted, ProcessingContext ctx) {
+        String payload = jsonMapper.writeValueAsString(extracted);
+        String flightKey = McpSingleFlight.key(OcrConstants.MCP_CLIENT_RESOLVE, ctx.authorization(), payload);
+        return resolveFlight.execute(flightKey, () -> resolveHedge != null
+                ? resolveHedge.execute(() -> callResolve(payload, ctx))
+                : callResolve(payload, ctx), ctx.remainingNanos());
+    }
+
+    private ResolutionResult callResolve(String payload, ProcessingContext ctx) {
+        long waitStartNs = System.nanoTime();
+        try (CircuitBreaker.Call breakerCall = resolveBreaker.acquire();
+             AdaptiveConcurrencyLimiter.Permit permit = resolveLimiter.acquire(ctx.priority(), ctx.remainingNanos())) {
+            long waitedMs = (System.nanoTime() - waitStartNs) / 1_000_000;
+            if (waitedMs > 0) {
+                log.info("Resolve request waited {} ms for inflight slot (limit={})", waitedMs,
+                        resolveLimiter.currentLimit());
+            }
             var resolveRequest = mcpClientRestClient.post()
                     .uri(OcrConstants.MCP_CLIENT_RESOLVE)
                     .contentType(MediaType.APPLICATION_JSON)
                     .accept(MediaType.APPLICATION_JSON);
-            if (authorization != null && !authorization.isBlank()) {
-                resolveRequest = resolveRequest.header("Authorization", authorization);
+            if (!isBlank(ctx.authorization())) {
+                resolveRequest = resolveRequest.header("Authorization", ctx.authorization());
             }
-            return resolveRequest
-                    .body(extracted)
+            var request = resolveRequest;
+            return withPermit(permit, breakerCall, ctx, () -> request
+                    .body(payload)
                     .retrieve()
-                    .body(ResolutionResult.class);
-        } finally {
-            resolveRequestLimiter.release();
+                    .body(ResolutionResult.class));
+        }
+    }
+
+    /**
+     * Runs an MCP call within the job context (its response timeout is capped at the remaining deadline) and feeds
+     * the outcome to the limiter: latency on success, back-off on timeouts and overload statuses. Other failures,
+     * and timeouts caused by the job's own deadline, release the permit without a sample. The circuit breaker
+     * counts 5xx responses, connect failures and timeouts as failures and any other response as a success.
+     */
+    private static <T> T withPermit(AdaptiveConcurrencyLimiter.Permit permit, CircuitBreaker.Call breakerCall,
+                                    ProcessingContext ctx, Supplier<T> call) {
+        try {
+            T result = ctx.callWithin(call);
+            permit.onSuccess();
+            breakerCall.onSuccess();
+            return result;
+        } catch (RestClientException e) {
+            boolean ownDeadline = ctx.expired();
+            if ((isReadTimeout(e) && !ownDeadline) || isOverloadStatus(e)) {
+                permit.onDropped();
+            }
+            if (isServerError(e) || (CircuitBreakers.isOutage(e) && !ownDeadline)) {
+                breakerCall.onFailure();
+            } else if (e instanceof RestClientResponseException) {
+                breakerCall.onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Overload statuses, connect failures and timeouts are transient, unless the job's own deadline has run out.
+     * A {@code Retry-After} header on the response is honoured.
+     */
+    private static RetryPolicy.Classifier mcpRetryClassifier(ProcessingContext ctx) {
+        return new RetryPolicy.Classifier() {
+            @Override
+            public boolean isRetryable(Throwable error) {
+                return !ctx.expired() && error instanceof RestClientException e
+                        && (isOverloadStatus(e) || CircuitBreakers.isOutage(e));
+            }
+
+            @Override
+            public long retryAfterMs(Throwable error) {
+                if (error instanceof RestClientResponseException response && response.getResponseHeaders() != null) {
+                    return RetryPolicy.parseRetryAfter(response.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                }
+                return -1L;
+            }
+        };
+    }
+
+    private static boolean isServerError(RestClientException exception) {
+        return exception instanceof RestClientResponseException response && response.getStatusCode().is5xxServerError();
+    }
+
+    private static boolean isOverloadStatus(RestClientException exception) {
+        if (!(exception instanceof RestClientResponseException response)) {
+            return false;
         }
+        int status = response.getStatusCode().value();
+        return status == 429 || status == 502 || status == 503 || status == 504;
     }
 
     private OcrProcessingException toMcpException(String message, String endpoint, RestClientException exception) {
@@ -694,5 +1513,7 @@ public class QuoteWorkflowServiceImpl implements QuoteWorkflowService {
 
     private record SpecEntry(String key, String value) {}
 
+    private record StreamedQuote(ExtractedQuote extracted, ResolutionResult resolved) {}
+
     private record LineDetails(List<OcrOptionDTO> options, Map<String, String> specs) {}
 }
@@ -0,0 +1,282 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.constants.OcrConstants;
+import com.novae.ocr.context.ProcessingContext;
+import com.novae.ocr.dto.ExtractedLine;
+import com.novae.ocr.dto.ExtractedQuote;
+import com.novae.ocr.dto.ResolutionResult;
+import com.novae.ocr.dto.ResolvedLine;
+import com.novae.ocr.exception.DeadlineExceededException;
+import com.novae.ocr.exception.OcrProcessingException;
+import com.novae.ocr.util.BlockingExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Merges small resolve requests from concurrent quotes into one MCP request.
+ * <p>
+ * Requests are grouped by vendor name, document type and authorization so vendor context and credentials never
+ * mix. A group is sent when it reaches {@code maxLines} or {@code windowMs} after its first request. Resolved lines
+ * and line-level missing fields and warnings are sliced back to each caller by line offset, and each caller's
+ * confidence is taken from its own lines; only the vendor id is shared. Quote-level findings of the merged response
+ * describe the merged quote (which has no PO number or totals), not any caller's, and are dropped. A merged request
+ * runs until the latest deadline of its callers; each caller stops waiting at its own deadline.
+ */
+final class ResolveMicroBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ResolveMicroBatcher.class);
+
+    private final BiFunction<ExtractedQuote, ProcessingContext, ResolutionResult> dispatcher;
+    private final int maxLines;
+    private final long windowMs;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService dispatchExecutor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<GroupKey, OpenBatch> open = new HashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong mergedBatches = new AtomicLong();
+
+    /**
+     * @param dispatcher sends one (possibly merged) quote to MCP
+     */
+    ResolveMicroBatcher(BiFunction<ExtractedQuote, ProcessingContext, ResolutionResult> dispatcher, int maxLines, long windowMs,
+                        boolean virtualThreads) {
+        this.dispatcher = dispatcher;
+        this.maxLines = Math.max(1, maxLines);
+        this.windowMs = Math.max(0L, windowMs);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "resolve-micro-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Dispatch threads only wait on MCP; concurrency is bounded by the resolve limiter behind the dispatcher.
+        this.dispatchExecutor = BlockingExecutors.unbounded("resolve-micro-batch", virtualThreads);
+    }
+
+    boolean accepts(ExtractedQuote quote) {
+        int lineCount = quote.getLines() != null ? quote.getLines().size() : 0;
+        return lineCount > 0 && lineCount < maxLines;
+    }
+
+    /**
+     * Blocks until the batch holding this quote has been resolved or the caller's deadline runs out.
+     */
+    ResolutionResult resolve(ExtractedQuote quote, ProcessingContext ctx) {
+        requests.incrementAndGet();
+        Pending pending = new Pending(quote, ctx);
+        GroupKey key = GroupKey.of(quote, ctx.authorization());
+        OpenBatch full = null;
+        OpenBatch ready = null;
+        lock.lock();
+        try {
+            OpenBatch batch = open.get(key);
+            if (batch != null && batch.lineCount + pending.lineCount() > maxLines) {
+                open.remove(key);
+                full = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new OpenBatch(key);
+                open.put(key, batch);
+                OpenBatch scheduled = batch;
+                timer.schedule(() -> flushIfOpen(scheduled), windowMs, TimeUnit.MILLISECONDS);
+            }
+            batch.add(pending);
+            if (batch.lineCount >= maxLines) {
+                open.remove(key);
+                ready = batch;
+            }
+        } finally {
+            lock.unlock();
+        }
+        dispatch(full);
+        dispatch(ready);
+        return await(pending);
+    }
+
+    private void flushIfOpen(OpenBatch batch) {
+        boolean removed;
+        lock.lock();
+        try {
+            removed = open.remove(batch.key, batch);
+        } finally {
+            lock.unlock();
+        }
+        if (removed) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(OpenBatch batch) {
+        if (batch != null) {
+            dispatchExecutor.execute(() -> send(batch));
+        }
+    }
+
+    private void send(OpenBatch batch) {
+        batches.incrementAndGet();
+        List<Pending> members = batch.members;
+        if (members.size() == 1) {
+            Pending only = members.get(0);
+            try {
+                only.future.complete(dispatcher.apply(only.quote, only.ctx));
+            } catch (RuntimeException e) {
+                only.future.completeExceptionally(e);
+            }
+            return;
+        }
+        mergedBatches.incrementAndGet();
+        log.info("Resolving {} quotes as one micro-batch ({} lines)", members.size(), batch.lineCount);
+        try {
+            List<ProcessingContext> contexts = members.stream().map(Pending::ctx).toList();
+            ResolutionResult merged = dispatcher.apply(mergedQuote(batch), ProcessingContext.sharedBy(contexts));
+            int offset = 0;
+            for (Pending member : members) {
+                member.future.complete(slice(merged, member.quote, offset));
+                offset += member.lineCount();
+            }
+        } catch (RuntimeException e) {
+            for (Pending member : members) {
+                member.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Quote-level fields (PO number, totals) differ per caller and are left out of merged requests.
+     */
+    private static ExtractedQuote mergedQuote(OpenBatch batch) {
+        ExtractedQuote first = batch.members.get(0).quote;
+        ExtractedQuote merged = new ExtractedQuote();
+        merged.setVendorName(first.getVendorName());
+        merged.setDocumentType(first.getDocumentType());
+        List<ExtractedLine> lines = new ArrayList<>(batch.lineCount);
+        for (Pending member : batch.members) {
+            lines.addAll(member.quote.getLines());
+        }
+        merged.setLines(lines);
+        return merged;
+    }
+
+    /**
+     * The part of {@code merged} that belongs to the caller whose lines start at {@code offset}.
+     */
+    static ResolutionResult slice(ResolutionResult merged, ExtractedQuote quote, int offset) {
+        ResolutionResult source = merged != null ? merged : new ResolutionResult();
+        int count = quote.getLines().size();
+        List<ResolvedLine> lines = new ArrayList<>(count);
+        double confidenceTotal = 0.0;
+        for (int i = 0; i < count; i++) {
+            int index = offset + i;
+            ResolvedLine line = index < source.getLines().size() ? source.getLines().get(index) : null;
+            if (line != null) {
+                confidenceTotal += line.getConfidence();
+            }
+            lines.add(line != null ? line.copy() : unresolved(quote.getLines().get(i)));
+        }
+        IntUnaryOperator toMember = index -> index >= offset && index < offset + count ? index - offset : -1;
+        ResolutionResult result = new ResolutionResult();
+        result.setLines(lines);
+        result.setResolvedVendorId(source.getResolvedVendorId());
+        // Without line confidences, the merged overall confidence is the best estimate available.
+        result.setOverallConfidence(confidenceTotal > 0.0 ? confidenceTotal / count : source.getOverallConfidence());
+        result.setWarnings(LinePaths.remap(LinePaths.withLineIndex(source.getWarnings()), toMember));
+        result.setMissingFields(LinePaths.remap(LinePaths.withLineIndex(source.getMissingFields()), toMember));
+        return result;
+    }
+
+    private static ResolvedLine unresolved(ExtractedLine ext) {
+        ResolvedLine placeholder = new ResolvedLine();
+        placeholder.setNormalizedColor(ext != null ? ext.getColor() : null);
+        return placeholder;
+    }
+
+    private static ResolutionResult await(Pending pending) {
+        try {
+            return pending.ctx.hasDeadline()
+                    ? pending.future.get(pending.ctx.remainingNanos(), TimeUnit.NANOSECONDS)
+                    : pending.future.get();
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("resolve micro-batch");
+        } catch (InterruptedException e) {
+            // The batch still completes for the other callers.
+            Thread.currentThread().interrupt();
+            throw new OcrProcessingException(OcrConstants.ERROR_RESOLUTION_FAILED, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new OcrProcessingException(OcrConstants.ERROR_RESOLUTION_FAILED, e.getCause());
+        }
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        stats.put("requests", requests.get());
+        stats.put("batches", batchCount);
+        stats.put("mergedBatches", mergedBatches.get());
+        stats.put("avgRequestsPerBatch", batchCount > 0 ? (double) requests.get() / batchCount : 0.0);
+        return stats;
+    }
+
+    void shutdown() {
+        timer.shutdown();
+        dispatchExecutor.shutdown();
+    }
+
+    private record GroupKey(String vendorName, String documentType, String authorization) {
+        static GroupKey of(ExtractedQuote quote, String authorization) {
+            return new GroupKey(normalize(quote.getVendorName()), normalize(quote.getDocumentType()),
+                    authorization != null ? authorization : "");
+        }
+
+        private static String normalize(String value) {
+            return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record Pending(ExtractedQuote quote, ProcessingContext ctx, CompletableFuture<ResolutionResult> future) {
+        Pending(ExtractedQuote quote, ProcessingContext ctx) {
+            this(quote, ctx, new CompletableFuture<>());
+        }
+
+        int lineCount() {
+            return quote.getLines().size();
+        }
+    }
+
+    private static final class OpenBatch {
+        private final GroupKey key;
+        private final List<Pending> members = new ArrayList<>();
+        private int lineCount;
+
+        private OpenBatch(GroupKey key) {
+            this.key = key;
+        }
+
+        private void add(Pending pending) {
+            members.add(pending);
+            lineCount += pending.lineCount();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.constants.OcrConstants;
+import com.novae.ocr.exception.OcrProcessingException;
+import com.novae.ocr.service.UploadSpoolService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+@Service
+public class UploadSpoolServiceImpl implements UploadSpoolService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSpoolServiceImpl.class);
+    private static final String SPOOL_PREFIX = "upload-";
+    private static final String SPOOL_SUFFIX = ".pdf";
+
+    private final Path spoolDir;
+
+    public UploadSpoolServiceImpl(
+            @Value("${ocr.upload.spool-dir:${java.io.tmpdir}/novae-ocr-spool}") String spoolDir) {
+        this.spoolDir = Paths.get(spoolDir);
+    }
+
+    @Override
+    public Path spool(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new OcrProcessingException(OcrConstants.ERROR_UPLOAD_SPOOL_FAILED);
+        }
+        Path target = newSpoolFile();
+        try {
+            file.transferTo(target);
+            return target;
+        } catch (IOException | RuntimeException e) {
+            release(target);
+            throw new OcrProcessingException(OcrConstants.ERROR_UPLOAD_SPOOL_FAILED, e);
+        }
+    }
+
+    @Override
+    public Path spool(InputStream inputStream, @Nullable String fileName) {
+        Path target = newSpoolFile();
+        try {
+            Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        } catch (IOException | RuntimeException e) {
+            release(target);
+            log.warn("Unable to spool file={}", fileName, e);
+            throw new OcrProcessingException(OcrConstants.ERROR_UPLOAD_SPOOL_FAILED, e);
+        }
+    }
+
+    @Override
+    public void release(@Nullable Path spoolFile) {
+        if (spoolFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Unable to delete spool file={}", spoolFile, e);
+        }
+    }
+
+    private Path newSpoolFile() {
+        try {
+            Files.createDirectories(spoolDir);
+            return Files.createTempFile(spoolDir, SPOOL_PREFIX, SPOOL_SUFFIX);
+        } catch (IOException e) {
+            throw new OcrProcessingException(OcrConstants.ERROR_UPLOAD_SPOOL_FAILED, e);
+        }
+    }
+}
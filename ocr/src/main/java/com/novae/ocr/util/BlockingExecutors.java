@@ -0,0 +1,104 @@
+package com.novae.ocr.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for tasks that mostly block on I/O (Azure polling, MCP HTTP).
+ * <p>
+ * In virtual-thread mode ({@code spring.threads.virtual.enabled}) every task gets its own virtual thread and a
+ * bounded executor caps concurrency with a semaphore instead of a thread count; tasks over the cap park cheaply on
+ * the semaphore. In platform mode the classic fixed and cached pools are used.
+ */
+public final class BlockingExecutors {
+
+    private BlockingExecutors() {}
+
+    /**
+     * Runs at most {@code maxConcurrency} tasks at a time; the rest wait in submission order.
+     */
+    public static ExecutorService bounded(String name, int maxConcurrency, boolean virtualThreads) {
+        int permits = Math.max(1, maxConcurrency);
+        if (!virtualThreads) {
+            return Executors.newFixedThreadPool(permits, platformThreads(name));
+        }
+        return new SemaphoreBoundedExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory()), permits);
+    }
+
+    /**
+     * No concurrency cap of its own; callers are bounded elsewhere (e.g. by a concurrency limiter).
+     */
+    public static ExecutorService unbounded(String name, boolean virtualThreads) {
+        return virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory())
+                : Executors.newCachedThreadPool(platformThreads(name));
+    }
+
+    private static ThreadFactory platformThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Starts a virtual thread per task; each task holds a fair semaphore permit while it runs.
+     */
+    private static final class SemaphoreBoundedExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        private SemaphoreBoundedExecutor(ExecutorService delegate, int permits) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(permits, true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                // Uninterruptible so a submitted task always runs (a future waiting on it must complete).
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.novae.ocr.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 helpers for content-addressed cache keys.
+ */
+public final class HashUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private HashUtils() {}
+
+    public static String sha256Hex(String text) {
+        return sha256Hex(text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    public static String sha256Hex(byte[] bytes) {
+        MessageDigest digest = newDigest();
+        return HexFormat.of().formatHex(digest.digest(bytes));
+    }
+
+    /**
+     * Hash file content by streaming it; the file is never fully loaded into heap.
+     */
+    public static String sha256Hex(Path file) {
+        MessageDigest digest = newDigest();
+        byte[] buf = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                digest.update(buf, 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.novae.ocr.context;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantKeysTest {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final String ISSUER = "https://login.dealer-portal.example";
+    private static final KeyPair ISSUER_KEYS = rsaKeyPair();
+    private static final KeyPair OTHER_KEYS = rsaKeyPair();
+
+    private final TenantKeys tenantKeys = new TenantKeys(JSON, publicKey(OTHER_KEYS) + "," + pem(ISSUER_KEYS),
+            ISSUER, "sub");
+
+    @Test
+    void renewedTokenOfTheSamePrincipalKeepsItsTenant() throws Exception {
+        String first = bearer(ISSUER_KEYS, claims("dealer-42", ISSUER, hoursFromNow(1)));
+        String renewed = bearer(ISSUER_KEYS, claims("dealer-42", ISSUER, hoursFromNow(2)));
+        String otherDealer = bearer(ISSUER_KEYS, claims("dealer-7", ISSUER, hoursFromNow(1)));
+
+        assertThat(tenantKeys.tenantOf(first)).startsWith("p:").hasSize(18)
+                .isEqualTo(tenantKeys.tenantOf(renewed))
+                .isNotEqualTo(tenantKeys.tenantOf(otherDealer));
+    }
+
+    @Test
+    void tokensThatDoNotVerifyFallBackToTheCredentialHash() throws Exception {
+        String unknownKey = bearer(rsaKeyPair(), claims("dealer-42", ISSUER, hoursFromNow(1)));
+        String expired = bearer(ISSUER_KEYS, claims("dealer-42", ISSUER, hoursFromNow(-1)));
+        String otherIssuer = bearer(ISSUER_KEYS, claims("dealer-42", "https://evil.example", hoursFromNow(1)));
+        String noPrincipal = bearer(ISSUER_KEYS, claims("", ISSUER, hoursFromNow(1)));
+        String valid = bearer(ISSUER_KEYS, claims("dealer-42", ISSUER, hoursFromNow(1)));
+        String[] parts = valid.substring("Bearer ".length()).split("\\.");
+        String unsigned = "Bearer " + base64Url("{\"alg\":\"none\"}") + "." + parts[1] + ".";
+        String tamperedClaims = "Bearer " + parts[0] + "."
+                + base64Url(claims("dealer-7", ISSUER, hoursFromNow(1))) + "." + parts[2];
+
+        for (String authorization : new String[] {unknownKey, expired, otherIssuer, noPrincipal, unsigned,
+                tamperedClaims, "Bearer not-a-jwt", "Basic ZGVhbGVyOnNlY3JldA=="}) {
+            assertThat(tenantKeys.tenantOf(authorization)).as(authorization)
+                    .isEqualTo(TenantKeys.fromCredential(authorization)).startsWith("h:");
+        }
+    }
+
+    @Test
+    void withoutConfiguredKeysEveryCredentialIsHashed() throws Exception {
+        TenantKeys unconfigured = new TenantKeys(JSON, "", "", "sub");
+        String token = bearer(ISSUER_KEYS, claims("dealer-42", ISSUER, hoursFromNow(1)));
+
+        assertThat(unconfigured.tenantOf(token)).isEqualTo(TenantKeys.fromCredential(token));
+        assertThat(unconfigured.tenantOf(" ")).isEqualTo(TenantKeys.ANONYMOUS);
+        assertThat(unconfigured.tenantOf(null)).isEqualTo(TenantKeys.ANONYMOUS);
+    }
+
+    @Test
+    void unreadableKeyFailsAtStartup() {
+        assertThatThrownBy(() -> new TenantKeys(JSON, "not-a-key", "", "sub"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String claims(String subject, String issuer, long exp) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer);
+        claims.put("sub", subject);
+        claims.put("exp", exp);
+        return JSON.writeValueAsString(claims);
+    }
+
+    private static long hoursFromNow(int hours) {
+        return System.currentTimeMillis() / 1000 + hours * 3600L;
+    }
+
+    private static String bearer(KeyPair keys, String claims) throws GeneralSecurityException {
+        String signed = base64Url("{\"alg\":\"RS256\",\"typ\":\"JWT\"}") + "." + base64Url(claims);
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(keys.getPrivate());
+        signer.update(signed.getBytes(StandardCharsets.US_ASCII));
+        return "Bearer " + signed + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String publicKey(KeyPair keys) {
+        return Base64.getEncoder().encodeToString(keys.getPublic().getEncoded());
+    }
+
+    private static String pem(KeyPair keys) {
+        return "-----BEGIN PUBLIC KEY-----\n" + Base64.getMimeEncoder().encodeToString(keys.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+    }
+
+    private static KeyPair rsaKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.novae.ocr.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairQueueTest {
+
+    private static final Predicate<String> ANY = tenant -> true;
+
+    @Test
+    void tenantsWithEqualWeightsAlternate() {
+        FairQueue<String> queue = new FairQueue<>(tenant -> 1);
+        queue.add("a", "a1");
+        queue.add("a", "a2");
+        queue.add("a", "a3");
+        queue.add("b", "b1");
+        queue.add("b", "b2");
+
+        assertThat(drain(queue)).containsExactly("a1", "b1", "a2", "b2", "a3");
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void weightGivesTenantThatManyItemsPerTurn() {
+        FairQueue<String> queue = new FairQueue<>(tenant -> Map.of("a", 2).getOrDefault(tenant, 1));
+        for (int i = 1; i <= 4; i++) {
+            queue.add("a", "a" + i);
+            queue.add("b", "b" + i);
+        }
+
+        assertThat(drain(queue)).containsExactly("a1", "a2", "b1", "a3", "a4", "b2", "b3", "b4");
+    }
+
+    @Test
+    void ineligibleTenantKeepsItsItemsButLosesTheTurn() {
+        FairQueue<String> queue = new FairQueue<>(tenant -> 1);
+        queue.add("a", "a1");
+        queue.add("a", "a2");
+        queue.add("b", "b1");
+        queue.add("b", "b2");
+
+        assertThat(queue.poll(tenant -> !tenant.equals("a"))).isEqualTo("b1");
+        assertThat(queue.size()).isEqualTo(3);
+        assertThat(drain(queue)).containsExactly("a1", "b2", "a2");
+    }
+
+    @Test
+    void pollReturnsNullWhenNoTenantIsEligible() {
+        FairQueue<String> queue = new FairQueue<>(tenant -> 1);
+        assertThat(queue.poll(ANY)).isNull();
+
+        queue.add("a", "a1");
+
+        assertThat(queue.poll(tenant -> false)).isNull();
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    @Test
+    void oldestIsTheEarliestTenantHead() {
+        FairQueue<Long> queue = new FairQueue<>(tenant -> 1);
+        queue.add("a", 30L);
+        queue.add("b", 10L);
+        queue.add("b", 5L);
+        queue.add("c", 20L);
+
+        assertThat(queue.oldestNanos(Long::longValue)).isEqualTo(10L);
+    }
+
+    private static List<String> drain(FairQueue<String> queue) {
+        List<String> items = new ArrayList<>();
+        for (String item = queue.poll(ANY); item != null; item = queue.poll(ANY)) {
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,132 @@
+package com.novae.ocr.pipeline;
+
+import com.novae.ocr.context.ProcessingContext;
+import com.novae.ocr.exception.StageOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineStageTest {
+
+    private static final ProcessingContext TENANT_A = ProcessingContext.create("Bearer tenant-a", "tenant-a", null);
+    private static final ProcessingContext TENANT_B = ProcessingContext.create("Bearer tenant-b", "tenant-b", null);
+
+    private PipelineStage stage;
+
+    @AfterEach
+    void shutdown() {
+        if (stage != null) {
+            stage.shutdown();
+        }
+    }
+
+    @Test
+    void slotIsHeldUntilWorkCompletesThenGoesToQueuedWork() throws Exception {
+        stage = stage(1, 1, 1.0);
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        stage.submit(TENANT_A, work(firstStarted, firstDone), new CompletableFuture<>());
+        stage.submit(TENANT_A, work(secondStarted, CompletableFuture.completedFuture(null)), new CompletableFuture<>());
+        assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> stage.submit(TENANT_B, () -> null, new CompletableFuture<>()))
+                .isInstanceOf(StageOverloadedException.class);
+        assertThat(secondStarted.getCount()).isEqualTo(1);
+
+        firstDone.complete(null);
+
+        assertThat(secondStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitStat("completed", 2L);
+        assertThat(stage.stats()).containsEntry("active", 0).containsEntry("queueDepth", 0)
+                .containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void failedWorkFailsTheJobAndReleasesTheSlot() throws Exception {
+        stage = stage(1, 1, 1.0);
+        IllegalStateException failure = new IllegalStateException("boom");
+        CompletableFuture<Void> job = new CompletableFuture<>();
+        CountDownLatch nextStarted = new CountDownLatch(1);
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+
+        stage.submit(TENANT_A, () -> firstDone, job);
+        stage.submit(TENANT_A, work(nextStarted, CompletableFuture.completedFuture(null)), new CompletableFuture<>());
+        firstDone.completeExceptionally(failure);
+
+        assertThatThrownBy(() -> job.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThat(nextStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitStat("failed", 1L);
+    }
+
+    @Test
+    void tenantAtItsShareQueuesWhileAnotherTenantStarts() throws Exception {
+        stage = stage(2, 4, 0.5);
+        CompletableFuture<Void> aDone = new CompletableFuture<>();
+        CountDownLatch aFirst = new CountDownLatch(1);
+        CountDownLatch aSecond = new CountDownLatch(1);
+        CountDownLatch bStarted = new CountDownLatch(1);
+
+        stage.submit(TENANT_A, work(aFirst, aDone), new CompletableFuture<>());
+        stage.submit(TENANT_A, work(aSecond, CompletableFuture.completedFuture(null)), new CompletableFuture<>());
+        stage.submit(TENANT_B, work(bStarted, new CompletableFuture<>()), new CompletableFuture<>());
+
+        assertThat(bStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(aSecond.getCount()).isEqualTo(1);
+        assertThat(stage.stats()).containsEntry("queueDepth", 1);
+
+        aDone.complete(null);
+
+        assertThat(aSecond.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void handoffWaitsForQueueSpaceInsteadOfBeingRejected() throws Exception {
+        stage = stage(1, 0, 1.0);
+        CompletableFuture<Void> firstDone = new CompletableFuture<>();
+        CountDownLatch handedOffStarted = new CountDownLatch(1);
+        stage.submit(TENANT_A, () -> firstDone, new CompletableFuture<>());
+
+        CompletableFuture<Void> accepted = stage.handoff(TENANT_B,
+                work(handedOffStarted, CompletableFuture.completedFuture(null)), new CompletableFuture<>());
+
+        assertThat(accepted).isNotDone();
+        assertThat(stage.stats()).containsEntry("waitingHandoffs", 1);
+
+        firstDone.complete(null);
+
+        accepted.get(5, TimeUnit.SECONDS);
+        assertThat(handedOffStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stage.stats()).containsEntry("waitingHandoffs", 0);
+    }
+
+    private static PipelineStage stage(int workers, int queueCapacity, double maxTenantShare) {
+        return new PipelineStage("test", workers, queueCapacity, maxTenantShare, tenant -> 1, 0, true);
+    }
+
+    private static Supplier<CompletableFuture<?>> work(CountDownLatch started, CompletableFuture<?> done) {
+        return () -> {
+            started.countDown();
+            return done;
+        };
+    }
+
+    private void awaitStat(String name, Object value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!value.equals(stage.stats().get(name))) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("expected " + name + "=" + value + " but was " + stage.stats().get(name));
+            }
+            Thread.sleep(1);
+        }
+    }
+}
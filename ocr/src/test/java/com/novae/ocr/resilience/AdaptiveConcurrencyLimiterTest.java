@@ -0,0 +1,105 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.exception.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long WAIT_FOREVER = Long.MAX_VALUE;
+
+    @Test
+    void droppedCallsBackOffTheLimitDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 2, 8, 1_000, 0);
+
+        limiter.acquire().onDropped();
+        assertThat(limiter.currentLimit()).isEqualTo(7);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire().onDropped();
+        }
+        assertThat(limiter.currentLimit()).isEqualTo(2);
+        assertThat(limiter.stats()).containsEntry("dropped", 51L).containsEntry("inflight", 0);
+    }
+
+    @Test
+    void closingWithoutOutcomeLeavesTheLimitAlone() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 1, 8, 1_000, 0);
+
+        limiter.acquire().close();
+
+        assertThat(limiter.currentLimit()).isEqualTo(4);
+        assertThat(limiter.stats()).containsEntry("dropped", 0L).containsEntry("inflight", 0);
+    }
+
+    @Test
+    void higherPriorityWaiterGetsTheFreedPermitFirst() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 10_000, 0);
+        List<Priority> order = new CopyOnWriteArrayList<>();
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+        Thread bulk = waiter(limiter, Priority.BULK, order);
+        awaitQueued(limiter, 1);
+        Thread interactive = waiter(limiter, Priority.INTERACTIVE, order);
+        awaitQueued(limiter, 2);
+        held.close();
+        bulk.join(5_000);
+        interactive.join(5_000);
+
+        assertThat(order).containsExactly(Priority.INTERACTIVE, Priority.BULK);
+    }
+
+    @Test
+    void agedBulkWaiterOvertakesNewerInteractiveWaiter() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 10_000, 20);
+        List<Priority> order = new CopyOnWriteArrayList<>();
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+        Thread bulk = waiter(limiter, Priority.BULK, order);
+        awaitQueued(limiter, 1);
+        // Two aging steps lift bulk to interactive; the third puts it ahead.
+        Thread.sleep(100);
+        Thread interactive = waiter(limiter, Priority.INTERACTIVE, order);
+        awaitQueued(limiter, 2);
+        held.close();
+        bulk.join(5_000);
+        interactive.join(5_000);
+
+        assertThat(order).containsExactly(Priority.BULK, Priority.INTERACTIVE);
+    }
+
+    @Test
+    void callerWaitingPastItsMaxWaitIsRejected() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 10_000, 0);
+        limiter.acquire();
+
+        assertThatThrownBy(() -> limiter.acquire(Priority.INTERACTIVE, TimeUnit.MILLISECONDS.toNanos(20)))
+                .isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(limiter.stats()).containsEntry("rejected", 1L).containsEntry("queued", 0);
+    }
+
+    private static Thread waiter(AdaptiveConcurrencyLimiter limiter, Priority priority, List<Priority> order) {
+        return Thread.ofVirtual().start(() -> {
+            try (AdaptiveConcurrencyLimiter.Permit ignored = limiter.acquire(priority, WAIT_FOREVER)) {
+                order.add(priority);
+            }
+        });
+    }
+
+    private static void awaitQueued(AdaptiveConcurrencyLimiter limiter, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Integer.valueOf(queued).equals(limiter.stats().get("queued"))) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("expected " + queued + " queued callers");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
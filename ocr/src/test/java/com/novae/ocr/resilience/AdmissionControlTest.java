@@ -0,0 +1,99 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.exception.AdmissionRejectedException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlTest {
+
+    /** Heap headroom depends on the test JVM, so it is never a reason for rejection here. */
+    private static final double NO_HEAP_LIMIT = 0.0;
+
+    @Test
+    void rejectsOnceTheNodeIsAtItsJobLimit() {
+        AdmissionControl admission = admission(2, 2, 1_000);
+        admission.admit("a", 1);
+        admission.admit("b", 1);
+
+        assertRejected(() -> admission.admit("c", 1), "jobs");
+        assertThat(admission.accepting()).isFalse();
+        assertThat(admission.stats()).containsEntry("rejectedJobs", 1L);
+    }
+
+    @Test
+    void oneTenantCannotTakeEverySlot() {
+        AdmissionControl admission = admission(4, 2, 1_000);
+        admission.admit("bulk", 1);
+        admission.admit("bulk", 1);
+
+        assertRejected(() -> admission.admit("bulk", 1), "tenant");
+        assertThat(admission.admit("other", 1)).isNotNull();
+        assertThat(admission.stats()).containsEntry("rejectedTenant", 1L);
+    }
+
+    @Test
+    void inflightBytesAreCappedButAnOversizedUploadIsAdmittedWhenIdle() {
+        AdmissionControl admission = admission(4, 4, 100);
+
+        AdmissionControl.Ticket oversized = admission.admit("a", 500);
+        assertRejected(() -> admission.admit("b", 1), "bytes");
+        oversized.close();
+        admission.admit("a", 60);
+
+        assertRejected(() -> admission.admit("b", 50), "bytes");
+        assertThat(admission.admit("b", 40)).isNotNull();
+        assertThat(admission.stats()).containsEntry("inflightBytes", 100L).containsEntry("rejectedBytes", 2L);
+    }
+
+    @Test
+    void closingATicketFreesItsSlotOnlyOnce() {
+        AdmissionControl admission = admission(1, 1, 1_000);
+        AdmissionControl.Ticket ticket = admission.admit("a", 10);
+
+        ticket.close();
+        ticket.close();
+        admission.admit("a", 10).discard();
+
+        assertThat(admission.stats()).containsEntry("inflightJobs", 0).containsEntry("inflightBytes", 0L)
+                .containsEntry("admitted", 2L);
+        assertThat(admission.admit("a", 10)).isNotNull();
+    }
+
+    @Test
+    void disabledAdmissionAcceptsEverything() {
+        AdmissionControl admission = new AdmissionControl(false, 1, 1, 1, 1.0, 1, 60);
+
+        admission.admit("a", 10);
+        admission.admit("a", 10);
+
+        assertThat(admission.accepting()).isTrue();
+        assertThat(admission.stats()).containsEntry("inflightJobs", 0).containsEntry("admitted", 2L);
+    }
+
+    @Test
+    void retryAfterIsClampedToTheConfiguredRange() {
+        AdmissionControl fresh = new AdmissionControl(true, 1, 1, 1_000, NO_HEAP_LIMIT, 2, 60);
+        AdmissionControl inverted = new AdmissionControl(true, 1, 1, 1_000, NO_HEAP_LIMIT, 5, 2);
+        fresh.admit("a", 1).close();
+
+        // A job that finished at once still does not invite an immediate retry.
+        assertThat(fresh.retryAfterMs()).isEqualTo(2_000L);
+        assertThat(inverted.retryAfterMs()).isEqualTo(5_000L);
+        assertThatThrownBy(() -> {
+            fresh.admit("a", 1);
+            fresh.admit("b", 1);
+        }).isInstanceOfSatisfying(AdmissionRejectedException.class,
+                rejected -> assertThat(rejected.getRetryAfterMs()).isEqualTo(2_000L));
+    }
+
+    private static AdmissionControl admission(int maxJobs, int maxJobsPerTenant, long maxInflightBytes) {
+        return new AdmissionControl(true, maxJobs, maxJobsPerTenant, maxInflightBytes, NO_HEAP_LIMIT, 1, 60);
+    }
+
+    private static void assertRejected(Runnable admit, String reason) {
+        assertThatThrownBy(admit::run).isInstanceOfSatisfying(AdmissionRejectedException.class,
+                rejected -> assertThat(rejected.getReason()).isEqualTo(reason));
+    }
+}
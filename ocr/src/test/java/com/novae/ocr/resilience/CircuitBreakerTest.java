@@ -0,0 +1,92 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.exception.CircuitOpenException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensOnceFailureRateReachesThresholdAfterMinCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 0.5, 4, 4, 60_000, 2);
+
+        breaker.acquire().onFailure();
+        breaker.acquire().onFailure();
+        breaker.acquire().onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.acquire().onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CircuitOpenException.class);
+        assertThat(breaker.stats()).containsEntry("opened", 1L).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyTheProbesAndClosesWhenAllSucceed() {
+        CircuitBreaker breaker = tripped(new CircuitBreaker("test", true, 1.0, 1, 1, 0, 2));
+
+        CircuitBreaker.Call first = breaker.acquire();
+        CircuitBreaker.Call second = breaker.acquire();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CircuitOpenException.class);
+
+        first.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        second.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeOpensAgain() {
+        CircuitBreaker breaker = tripped(new CircuitBreaker("test", true, 1.0, 1, 1, 0, 2));
+
+        CircuitBreaker.Call probe = breaker.acquire();
+        probe.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.stats()).containsEntry("opened", 2L);
+    }
+
+    @Test
+    void probeClosedWithoutOutcomeFreesItsSlot() {
+        CircuitBreaker breaker = tripped(new CircuitBreaker("test", true, 1.0, 1, 1, 0, 1));
+
+        breaker.acquire().close();
+        breaker.acquire().onSuccess();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void outcomeOfCallStartedBeforeStateChangeIsIgnored() {
+        CircuitBreaker breaker = new CircuitBreaker("test", true, 1.0, 1, 1, 0, 1);
+        CircuitBreaker.Call stale = breaker.acquire();
+        tripped(breaker);
+        breaker.acquire().onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        stale.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        CircuitBreaker breaker = new CircuitBreaker("test", false, 0.5, 2, 1, 60_000, 1);
+
+        for (int i = 0; i < 10; i++) {
+            breaker.acquire().onFailure();
+        }
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.stats()).containsEntry("failures", 10L).containsEntry("opened", 0L);
+    }
+
+    private static CircuitBreaker tripped(CircuitBreaker breaker) {
+        breaker.acquire().onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+}
@@ -0,0 +1,162 @@
+package com.novae.ocr.resilience;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryPolicyTest {
+
+    private static final LongSupplier NO_DEADLINE = () -> Long.MAX_VALUE;
+    private static final RetryPolicy.Classifier ALL_RETRYABLE = error -> true;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void retriesTransientFailuresUntilSuccess() {
+        RetryPolicy policy = policy(3, 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = policy.execute(failingTimes(2, attempts), ALL_RETRYABLE, NO_DEADLINE);
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(3);
+        assertThat(policy.stats()).containsEntry("retries", 2L);
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsOrOnNonRetryableFailures() {
+        RetryPolicy policy = policy(3, 1.0);
+        AtomicInteger exhausting = new AtomicInteger();
+        AtomicInteger permanent = new AtomicInteger();
+
+        assertThatThrownBy(() -> policy.execute(failingTimes(5, exhausting), ALL_RETRYABLE, NO_DEADLINE))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> policy.execute(failingTimes(5, permanent), error -> false, NO_DEADLINE))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(exhausting).hasValue(3);
+        assertThat(permanent).hasValue(1);
+        assertThat(policy.stats()).containsEntry("exhausted", 1L);
+    }
+
+    @Test
+    void budgetCapsRetriesAtItsShareOfCalls() {
+        // No tokens earned per call, so only the initial ten are available.
+        RetryPolicy policy = policy(2, 0.0);
+
+        for (int i = 0; i < 12; i++) {
+            assertThatThrownBy(() -> policy.execute(failingTimes(5, new AtomicInteger()), ALL_RETRYABLE,
+                    NO_DEADLINE)).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(policy.stats()).containsEntry("retries", 10L).containsEntry("deniedByBudget", 2L);
+    }
+
+    @Test
+    void retryAfterLongerThanTheBackoffIsHonoured() {
+        RetryPolicy policy = policy(2, 1.0);
+        long startNs = System.nanoTime();
+
+        policy.execute(failingTimes(1, new AtomicInteger()), retryAfter(100), NO_DEADLINE);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs)).isGreaterThanOrEqualTo(100);
+        assertThat(policy.stats()).containsEntry("retryAfterHonoured", 1L);
+    }
+
+    @Test
+    void retryThatWouldNotFitTheCallersTimeIsSkipped() {
+        RetryPolicy policy = policy(3, 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> policy.execute(failingTimes(1, attempts), retryAfter(5_000),
+                () -> TimeUnit.SECONDS.toNanos(1))).isInstanceOf(IllegalStateException.class);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(policy.stats()).containsEntry("deniedByDeadline", 1L).containsEntry("retries", 0L);
+    }
+
+    @Test
+    void asyncRetriesStopOnceTheResultIsCancelled() throws Exception {
+        RetryPolicy policy = policy(5, 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<CompletableFuture<String>> call = () -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("503"));
+        };
+
+        CompletableFuture<String> result = policy.executeAsync(call, retryAfter(50), NO_DEADLINE);
+        result.cancel(false);
+        Thread.sleep(200);
+
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void asyncRetriesUntilSuccess() {
+        RetryPolicy policy = policy(3, 1.0);
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<String> sync = failingTimes(2, attempts);
+
+        String result = policy.executeAsync(() -> CompletableFuture.supplyAsync(sync), ALL_RETRYABLE, NO_DEADLINE)
+                .join();
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void parsesRetryAfterSecondsAndHttpDates() {
+        String inThirtySeconds = DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+
+        assertThat(RetryPolicy.parseRetryAfter("5")).isEqualTo(5_000L);
+        assertThat(RetryPolicy.parseRetryAfter(inThirtySeconds)).isBetween(25_000L, 30_000L);
+        assertThat(RetryPolicy.parseRetryAfter("soon")).isEqualTo(-1L);
+        assertThat(RetryPolicy.parseRetryAfter(null)).isEqualTo(-1L);
+    }
+
+    private RetryPolicy policy(int maxAttempts, double budgetRatio) {
+        return new RetryPolicy("test", maxAttempts, 1, 5, budgetRatio, scheduler);
+    }
+
+    private static Supplier<String> failingTimes(int failures, AtomicInteger attempts) {
+        return () -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IllegalStateException("503");
+            }
+            return "ok";
+        };
+    }
+
+    private static RetryPolicy.Classifier retryAfter(long millis) {
+        return new RetryPolicy.Classifier() {
+            @Override
+            public boolean isRetryable(Throwable error) {
+                return true;
+            }
+
+            @Override
+            public long retryAfterMs(Throwable error) {
+                return millis;
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.novae.ocr.resilience;
+
+import com.novae.ocr.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private final SingleFlight<String, List<String>> flight = new SingleFlight<>("test", ArrayList::new);
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void followerGetsItsOwnCopyOfTheLeadersResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<List<String>> call = () -> {
+            calls.incrementAndGet();
+            await(release);
+            return new ArrayList<>(List.of("SKU-1"));
+        };
+
+        CompletableFuture<List<String>> leader = run(call, Long.MAX_VALUE);
+        awaitStat("leaders", 1L);
+        CompletableFuture<List<String>> follower = run(call, Long.MAX_VALUE);
+        awaitStat("coalesced", 1L);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).containsExactly("SKU-1");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).containsExactly("SKU-1")
+                .isNotSameAs(leader.get());
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void followerWithTimeLeftRerunsWhenOnlyTheLeadersDeadlineRanOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<List<String>> call = () -> {
+            if (calls.incrementAndGet() == 1) {
+                await(release);
+                throw new DeadlineExceededException("mcp-resolve");
+            }
+            return List.of("rerun");
+        };
+
+        CompletableFuture<List<String>> leader = run(call, TimeUnit.SECONDS.toNanos(30));
+        awaitStat("leaders", 1L);
+        CompletableFuture<List<String>> follower = run(call, Long.MAX_VALUE);
+        awaitStat("coalesced", 1L);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(DeadlineExceededException.class);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).containsExactly("rerun");
+        assertThat(calls).hasValue(2);
+        assertThat(flight.stats()).containsEntry("rerunsAfterLeaderDeadline", 1L);
+    }
+
+    @Test
+    void otherFailuresAreSharedWithoutRerun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("MCP returned 400");
+        Supplier<List<String>> call = () -> {
+            calls.incrementAndGet();
+            await(release);
+            throw failure;
+        };
+
+        CompletableFuture<List<String>> leader = run(call, Long.MAX_VALUE);
+        awaitStat("leaders", 1L);
+        CompletableFuture<List<String>> follower = run(call, Long.MAX_VALUE);
+        awaitStat("coalesced", 1L);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void followerStopsWaitingAtItsOwnDeadlineWhileTheCallCarriesOn() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<String>> call = () -> {
+            await(release);
+            return List.of("late");
+        };
+
+        CompletableFuture<List<String>> leader = run(call, Long.MAX_VALUE);
+        awaitStat("leaders", 1L);
+        CompletableFuture<List<String>> follower = run(call, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(DeadlineExceededException.class);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).containsExactly("late");
+        assertThat(flight.stats()).containsEntry("cancelledFollowers", 1L);
+    }
+
+    private CompletableFuture<List<String>> run(Supplier<List<String>> call, long maxWaitNanos) {
+        return CompletableFuture.supplyAsync(() -> flight.execute("key", call, maxWaitNanos), callers);
+    }
+
+    private void awaitStat(String name, Object value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!value.equals(flight.stats().get(name))) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("expected " + name + "=" + value);
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.dto.AsyncJob;
+import com.novae.ocr.dto.AsyncJobStatus;
+import com.novae.ocr.dto.OcrQuoteDTO;
+import com.novae.ocr.dto.OcrQuoteLineDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncJobStoreImplTest {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final long NO_SPILL_CAP = 0L;
+
+    @TempDir
+    Path spillDir;
+
+    private final List<AsyncJobStoreImpl> stores = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        stores.forEach(AsyncJobStoreImpl::shutdownSweeper);
+    }
+
+    @Test
+    void processingJobsAreNeverEvictedAndOldestFinishedGoesFirst() {
+        AsyncJobStoreImpl store = store(2, null, NO_SPILL_CAP);
+        String first = store.register();
+        String second = store.register();
+        String third = store.register();
+        store.fail(first, "first");
+
+        assertThat(store.find(first)).isEmpty();
+        assertThat(store.find(second)).map(AsyncJob::getStatus).contains(AsyncJobStatus.PROCESSING);
+        assertThat(store.find(third)).map(AsyncJob::getStatus).contains(AsyncJobStatus.PROCESSING);
+        assertThat(store.stats()).containsEntry("sizeEvictions", 1L);
+    }
+
+    @Test
+    void evictedJobIsServedFromTheSpillDir() {
+        AsyncJobStoreImpl store = store(1, spillDir, NO_SPILL_CAP);
+        String evicted = store.register();
+        store.fail(evicted, "bad pdf");
+        store.fail(store.register(), "other");
+
+        assertThat(store.find(evicted)).hasValueSatisfying(job -> {
+            assertThat(job.getStatus()).isEqualTo(AsyncJobStatus.FAILED);
+            assertThat(job.getError()).isEqualTo("bad pdf");
+        });
+        assertThat(store.stats()).containsEntry("spills", 1L).containsEntry("diskReads", 1L);
+    }
+
+    @Test
+    void spillDirOverItsCapDropsTheOldestFiles() {
+        AsyncJobStoreImpl store = store(1, spillDir, 1L);
+        String oldest = store.register();
+        store.fail(oldest, "oldest");
+        String newer = store.register();
+        store.fail(newer, "newer");
+        store.fail(store.register(), "in memory");
+
+        assertThat(store.find(oldest)).isEmpty();
+        assertThat(Files.exists(spillDir.resolve(oldest + ".json"))).isFalse();
+        assertThat(store.find(newer)).map(AsyncJob::getError).contains("newer");
+        assertThat(store.stats()).containsEntry("diskEntries", 1).containsEntry("diskEvictions", 1L);
+    }
+
+    @Test
+    void spilledJobsSurviveARestart() {
+        AsyncJobStoreImpl before = store(1, spillDir, NO_SPILL_CAP);
+        String spilled = before.register();
+        before.fail(spilled, "kept");
+        before.fail(before.register(), "evicts the first");
+
+        AsyncJobStoreImpl after = store(1, spillDir, NO_SPILL_CAP);
+
+        assertThat(after.find(spilled)).map(AsyncJob::getError).contains("kept");
+    }
+
+    @Test
+    void sizeEstimateGrowsWithTheResult() {
+        OcrQuoteDTO small = new OcrQuoteDTO();
+        OcrQuoteDTO large = new OcrQuoteDTO();
+        List<OcrQuoteLineDTO> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            OcrQuoteLineDTO line = new OcrQuoteLineDTO();
+            line.setDescription("Shelf unit " + i);
+            lines.add(line);
+        }
+        large.setQuoteItems(lines);
+
+        long smallBytes = AsyncJobStoreImpl.estimateBytes(new AsyncJob("a", AsyncJobStatus.COMPLETED, small, null));
+        long largeBytes = AsyncJobStoreImpl.estimateBytes(new AsyncJob("b", AsyncJobStatus.COMPLETED, large, null));
+
+        assertThat(largeBytes - smallBytes).isGreaterThan(100 * 2 * "Shelf unit 0".length());
+    }
+
+    private AsyncJobStoreImpl store(int maxEntries, Path dir, long spillMaxBytes) {
+        AsyncJobStoreImpl store = new AsyncJobStoreImpl(JSON, 60, maxEntries, Long.MAX_VALUE,
+                dir != null ? dir.toString() : "", spillMaxBytes, 3600);
+        stores.add(store);
+        return store;
+    }
+}
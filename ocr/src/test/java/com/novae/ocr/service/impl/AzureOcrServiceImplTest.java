@@ -0,0 +1,224 @@
+package com.novae.ocr.service.impl;
+
+import com.azure.ai.formrecognizer.documentanalysis.models.AnalyzeResult;
+import com.azure.ai.formrecognizer.documentanalysis.models.DocumentPage;
+import com.azure.ai.formrecognizer.documentanalysis.models.DocumentSpan;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpResponse;
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.dto.OcrDocument;
+import com.novae.ocr.service.impl.AzureOcrServiceImpl.Caller;
+import com.novae.ocr.service.impl.AzureOcrServiceImpl.PageRange;
+import com.novae.ocr.service.impl.AzureOcrServiceImpl.PendingAnalysis;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AzureOcrServiceImplTest {
+
+    @Test
+    void pageRangesSplitIntoBatchesWithAShortLastOne() {
+        List<PageRange> ranges = AzureOcrServiceImpl.pageRanges(41, 20);
+
+        assertThat(ranges).containsExactly(new PageRange(1, 20), new PageRange(21, 40), new PageRange(41, 41));
+        assertThat(ranges).extracting(PageRange::toString).containsExactly("1-20", "21-40", "41");
+        assertThat(ranges.getLast().size()).isEqualTo(1);
+    }
+
+    @Test
+    void smallOrUnknownPageCountsYieldOneUnrestrictedBatch() {
+        assertThat(AzureOcrServiceImpl.pageRanges(20, 20)).isEmpty();
+        assertThat(AzureOcrServiceImpl.pageRanges(0, 20)).isEmpty();
+    }
+
+    @Test
+    void nextRangeFollowsTheLastFullBatch() {
+        PageRange next = new PageRange(21, 40).next(20);
+
+        assertThat(next).isEqualTo(new PageRange(41, 60));
+        assertThat(next.size()).isEqualTo(20);
+    }
+
+    @Test
+    void stitchCutsPagesPerBatchBeforeJoiningContents() {
+        AnalyzeResult first = result("Quote 1\nPage two", page(0, 7), page(8, 8));
+        AnalyzeResult second = result("Totals", page(0, 6));
+
+        OcrDocument document = AzureOcrServiceImpl.stitch(List.of(first, second));
+
+        assertThat(document.getContent()).isEqualTo("Quote 1\nPage two\nTotals");
+        assertThat(document.getPageTexts()).containsExactly("Quote 1", "Page two", "Totals");
+    }
+
+    @Test
+    void stitchKeepsBlankPagesAndSkipsEmptyBatchContent() {
+        AnalyzeResult blank = result("", page());
+        AnalyzeResult text = result("Lines", page(0, 5));
+
+        OcrDocument document = AzureOcrServiceImpl.stitch(List.of(blank, text));
+
+        assertThat(document.getContent()).isEqualTo("Lines");
+        assertThat(document.getPageTexts()).containsExactly("", "Lines");
+    }
+
+    @Test
+    void exactCountWithShortLastBatchRequestsNothingMore() {
+        List<PageRange> requested = new ArrayList<>();
+
+        List<AnalyzeResult> results = AzureOcrServiceImpl.analyzeTail(batches(20, 20, 5), new PageRange(41, 45),
+                true, 20, recording(requested, range -> CompletableFuture.completedFuture(pages(20)))).join();
+
+        assertThat(requested).isEmpty();
+        assertThat(results).hasSize(3);
+    }
+
+    @Test
+    void exactCountStillProbesWhenLastBatchReturnedMoreThanRequested() {
+        List<PageRange> requested = new ArrayList<>();
+
+        List<AnalyzeResult> results = AzureOcrServiceImpl.analyzeTail(batches(20, 6), new PageRange(21, 25), true,
+                20, recording(requested, range -> CompletableFuture.completedFuture(pages(0)))).join();
+
+        assertThat(requested).containsExactly(new PageRange(26, 45));
+        assertThat(results).hasSize(2);
+    }
+
+    @Test
+    void uncertainCountKeepsRequestingUntilABatchComesBackShort() {
+        List<PageRange> requested = new ArrayList<>();
+        List<Integer> answers = new ArrayList<>(List.of(20, 3));
+
+        List<AnalyzeResult> results = AzureOcrServiceImpl.analyzeTail(batches(20, 20), new PageRange(21, 40), false,
+                20, recording(requested, range -> CompletableFuture.completedFuture(pages(answers.removeFirst()))))
+                .join();
+
+        assertThat(requested).containsExactly(new PageRange(41, 60), new PageRange(61, 80));
+        assertThat(results).extracting(result -> result.getPages().size()).containsExactly(20, 20, 20, 3);
+    }
+
+    @Test
+    void rangeRejectedOrFailedPastTheLastPageEndsTheDocument() {
+        List<Throwable> pastEnd = List.of(httpError(400), new HttpResponseException("operation failed", null),
+                new AzureOcrServiceImpl.AnalysisFailedException("41-60"));
+
+        for (Throwable error : pastEnd) {
+            List<AnalyzeResult> results = AzureOcrServiceImpl.analyzeTail(batches(20, 20), new PageRange(21, 40),
+                    false, 20, range -> CompletableFuture.failedFuture(error)).join();
+
+            assertThat(results).as(error.toString()).hasSize(2);
+        }
+    }
+
+    @Test
+    void otherFailuresOfTheExtraRangeFailTheDocument() {
+        HttpResponseException unavailable = httpError(503);
+
+        CompletableFuture<List<AnalyzeResult>> results = AzureOcrServiceImpl.analyzeTail(batches(20, 20),
+                new PageRange(21, 40), false, 20, range -> CompletableFuture.failedFuture(unavailable));
+
+        assertThatThrownBy(results::join).isInstanceOf(CompletionException.class).hasCause(unavailable);
+    }
+
+    @Test
+    void queuedAnalysesStartByPriorityThenInArrivalOrder() {
+        PendingAnalysis bulk = pending(Priority.BULK, 0);
+        PendingAnalysis firstAsync = pending(Priority.ASYNC, 1);
+        PendingAnalysis secondAsync = pending(Priority.ASYNC, 2);
+        List<PendingAnalysis> queue = new ArrayList<>(List.of(bulk, firstAsync, secondAsync));
+
+        List<PendingAnalysis> started = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            started.add(AzureOcrServiceImpl.pollNextAnalysis(queue, 3, 1_000, new ArrayList<>()));
+        }
+
+        assertThat(started).containsExactly(firstAsync, secondAsync, bulk);
+        assertThat(queue).isEmpty();
+    }
+
+    @Test
+    void bulkAnalysisWaitingLongEnoughOvertakesNewerAsyncOnes() {
+        PendingAnalysis bulk = pending(Priority.BULK, 0);
+        PendingAnalysis async = pending(Priority.ASYNC, 1_500);
+        List<PendingAnalysis> queue = new ArrayList<>(List.of(async, bulk));
+
+        // At 2,000 with 1,000 aging: bulk ranks 2 - 2.0 = 0, async 1 - 0.5 = 0.5.
+        assertThat(AzureOcrServiceImpl.pollNextAnalysis(queue, 2_000, 1_000, new ArrayList<>())).isSameAs(bulk);
+    }
+
+    @Test
+    void analysesOfCallersNoLongerWaitingAreSkipped() {
+        PendingAnalysis abandoned = pending(Priority.ASYNC, 0);
+        abandoned.caller().future().cancel(false);
+        PendingAnalysis waiting = pending(Priority.BULK, 1);
+        List<PendingAnalysis> queue = new ArrayList<>(List.of(abandoned, waiting));
+        List<PendingAnalysis> skipped = new ArrayList<>();
+
+        assertThat(AzureOcrServiceImpl.pollNextAnalysis(queue, 2, 1_000, skipped)).isSameAs(waiting);
+        assertThat(skipped).containsExactly(abandoned);
+        assertThat(AzureOcrServiceImpl.pollNextAnalysis(queue, 2, 1_000, skipped)).isNull();
+    }
+
+    private static PendingAnalysis pending(Priority priority, long queuedNanos) {
+        Caller caller = new Caller(new CompletableFuture<>(), priority, () -> Long.MAX_VALUE);
+        return new PendingAnalysis(caller, new CompletableFuture<>(), () -> { }, queuedNanos);
+    }
+
+    private static Function<PageRange, CompletableFuture<AnalyzeResult>> recording(
+            List<PageRange> requested, Function<PageRange, CompletableFuture<AnalyzeResult>> analyze) {
+        return range -> {
+            requested.add(range);
+            return analyze.apply(range);
+        };
+    }
+
+    private static List<AnalyzeResult> batches(int... pageCounts) {
+        List<AnalyzeResult> results = new ArrayList<>();
+        for (int pageCount : pageCounts) {
+            results.add(pages(pageCount));
+        }
+        return results;
+    }
+
+    private static AnalyzeResult pages(int pageCount) {
+        return result("", Collections.nCopies(pageCount, page()).toArray(new DocumentPage[0]));
+    }
+
+    private static HttpResponseException httpError(int status) {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        return new HttpResponseException("status " + status, response);
+    }
+
+    private static AnalyzeResult result(String content, DocumentPage... pages) {
+        AnalyzeResult result = mock(AnalyzeResult.class);
+        when(result.getContent()).thenReturn(content);
+        when(result.getPages()).thenReturn(List.of(pages));
+        return result;
+    }
+
+    /**
+     * A page made of (offset, length) spans into its batch's content.
+     */
+    private static DocumentPage page(int... offsetsAndLengths) {
+        List<DocumentSpan> spans = new ArrayList<>();
+        for (int i = 0; i < offsetsAndLengths.length; i += 2) {
+            DocumentSpan span = mock(DocumentSpan.class);
+            when(span.getOffset()).thenReturn(offsetsAndLengths[i]);
+            when(span.getLength()).thenReturn(offsetsAndLengths[i + 1]);
+            spans.add(span);
+        }
+        DocumentPage page = mock(DocumentPage.class);
+        when(page.getSpans()).thenReturn(spans);
+        return page;
+    }
+}
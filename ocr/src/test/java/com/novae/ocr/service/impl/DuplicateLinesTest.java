@@ -0,0 +1,86 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.dto.ExtractedLine;
+import com.novae.ocr.dto.ResolutionResult;
+import com.novae.ocr.dto.ResolvedLine;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateLinesTest {
+
+    @Test
+    void linesDifferingOnlyInColorQtyOrPriceShareAGroup() {
+        List<ExtractedLine> lines = List.of(line("Shelf 24in", "Black", 2, "10.00"),
+                line("  shelf  24IN ", "white", 5, "12.00"), line("Shelf 36in", "Black", 1, "15.00"));
+
+        DuplicateLines duplicates = DuplicateLines.of(lines, "Acme");
+
+        assertThat(duplicates.hasDuplicates()).isTrue();
+        assertThat(duplicates.duplicateCount()).isEqualTo(1);
+        assertThat(duplicates.uniqueIndexes()).containsExactly(0, 2);
+    }
+
+    @Test
+    void fanOutCopiesTheResolutionToEveryMemberKeepingItsOwnColor() {
+        List<ExtractedLine> lines = List.of(line("Shelf 24in", "Black", 2, "10.00"),
+                line("Shelf 36in", "Black", 1, "15.00"), line("Shelf 24in", "white", 5, "12.00"),
+                line("Shelf 24in", " BLACK ", 1, "10.00"));
+        DuplicateLines duplicates = DuplicateLines.of(lines, "Acme");
+        ResolutionResult unique = new ResolutionResult();
+        unique.setLines(List.of(resolved("SKU-24", "black"), resolved("SKU-36", "black")));
+        unique.setResolvedVendorId("V-1");
+        unique.setOverallConfidence(0.7);
+        unique.setWarnings(List.of("total does not match lines"));
+        unique.setMissingFields(List.of("lines[0].unitPrice", "lines[1].qty", "poNumber"));
+
+        ResolutionResult fanned = duplicates.fanOut(unique);
+
+        assertThat(fanned.getLines()).extracting(ResolvedLine::getSku)
+                .containsExactly("SKU-24", "SKU-36", "SKU-24", "SKU-24");
+        assertThat(fanned.getLines()).extracting(ResolvedLine::getNormalizedColor)
+                .containsExactly("black", "black", "white", "black");
+        assertThat(fanned.getLines().get(2)).isNotSameAs(fanned.getLines().get(0));
+        assertThat(fanned.getLines().get(0)).isSameAs(unique.getLines().get(0));
+        assertThat(fanned.getResolvedVendorId()).isEqualTo("V-1");
+        assertThat(fanned.getOverallConfidence()).isEqualTo(0.7);
+        assertThat(fanned.getWarnings()).containsExactly("total does not match lines");
+        assertThat(fanned.getMissingFields())
+                .containsExactly("lines[0].unitPrice", "lines[2].unitPrice", "lines[3].unitPrice", "lines[1].qty",
+                        "poNumber");
+    }
+
+    @Test
+    void groupsMissingFromTheUniqueResultStayUnresolved() {
+        List<ExtractedLine> lines = List.of(line("Shelf 24in", "Black", 1, "10.00"),
+                line("Shelf 36in", "Black", 1, "15.00"), line("Shelf 36in", "Black", 1, "15.00"));
+        DuplicateLines duplicates = DuplicateLines.of(lines, "Acme");
+        ResolutionResult unique = new ResolutionResult();
+        unique.setLines(List.of(resolved("SKU-24", "black")));
+
+        ResolutionResult fanned = duplicates.fanOut(unique);
+
+        assertThat(fanned.getLines()).hasSize(3);
+        assertThat(fanned.getLines().get(1)).isNull();
+        assertThat(fanned.getLines().get(2)).isNull();
+    }
+
+    private static ExtractedLine line(String description, String color, int qty, String unitPrice) {
+        ExtractedLine line = new ExtractedLine();
+        line.setDescription(description);
+        line.setColor(color);
+        line.setQty(qty);
+        line.setUnitPrice(new BigDecimal(unitPrice));
+        return line;
+    }
+
+    private static ResolvedLine resolved(String sku, String color) {
+        ResolvedLine line = new ResolvedLine();
+        line.setSku(sku);
+        line.setNormalizedColor(color);
+        return line;
+    }
+}
@@ -0,0 +1,67 @@
+package com.novae.ocr.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OcrTextCompactorImplTest {
+
+    private final OcrTextCompactorImpl compactor = new OcrTextCompactorImpl(true, 3, 0.6,
+            List.of("terms and conditions", "governing law", "warranty"), 2);
+
+    @Test
+    void runningHeaderAndFooterAreKeptOnlyWhereTheyFirstAppear() {
+        List<String> pages = List.of(
+                "ACME Corp  Quote\nShelf 24in qty 2 $10.00\nPage 1 of 3",
+                "ACME Corp Quote\nShelf 36in qty 4 $14.00\nPage 2 of 3",
+                "ACME Corp Quote\nShelf 48in qty 1 $19.00\nPage 3 of 3");
+
+        List<String> compacted = compactor.compact(pages);
+
+        assertThat(compacted).containsExactly(
+                "ACME Corp Quote\nShelf 24in qty 2 $10.00\nPage 1 of 3",
+                "Shelf 36in qty 4 $14.00",
+                "Shelf 48in qty 1 $19.00");
+        assertThat(compactor.stats()).containsEntry("repeatedLinesRemoved", 4L);
+    }
+
+    @Test
+    void similarPricedLinesAreNeverTakenForARepeatedHeader() {
+        List<String> pages = List.of(
+                "Shelf 24in qty 2 $10.00",
+                "Shelf 36in qty 4 $14.00",
+                "Shelf 48in qty 1 $19.00");
+
+        assertThat(compactor.compact(pages)).containsExactlyElementsOf(pages);
+    }
+
+    @Test
+    void twoPageDocumentsKeepTheirRepeatedLines() {
+        List<String> pages = List.of("ACME Corp Quote\nShelf 24in qty 2 $10.00", "ACME Corp Quote\nTotal $20.00");
+
+        assertThat(compactor.compact(pages)).containsExactlyElementsOf(pages);
+    }
+
+    @Test
+    void boilerplatePagesAfterTheFirstAreDroppedUnlessTheyCarryPrices() {
+        List<String> pages = List.of(
+                "Terms and Conditions apply, see below\nShelf 24in qty 2 $10.00",
+                "Terms and conditions\nGoverning law: Delaware\nWarranty: 1 year",
+                "Warranty and terms and conditions\nFreight $45.00");
+
+        List<String> compacted = compactor.compact(pages);
+
+        assertThat(compacted).containsExactly(pages.get(0), pages.get(2));
+        assertThat(compactor.stats()).containsEntry("boilerplatePagesDropped", 1L);
+    }
+
+    @Test
+    void disabledCompactorReturnsThePagesUntouched() {
+        OcrTextCompactorImpl disabled = new OcrTextCompactorImpl(false, 3, 0.6, List.of("warranty"), 1);
+        List<String> pages = List.of("a  b", "Warranty");
+
+        assertThat(disabled.compact(pages)).isSameAs(pages);
+    }
+}
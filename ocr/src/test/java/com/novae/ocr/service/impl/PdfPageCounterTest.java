@@ -0,0 +1,49 @@
+package com.novae.ocr.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfPageCounterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void countIsExactWhenPageObjectsMatchThePageTree() throws Exception {
+        PdfPageCounter.PageCount count = PdfPageCounter.countPages(pdf(
+                "1 0 obj << /Type /Pages /Kids [2 0 R 3 0 R 4 0 R] /Count 3 >> endobj",
+                "2 0 obj << /Type /Page >> endobj", "3 0 obj << /Type /Page >> endobj",
+                "4 0 obj << /Type /Page >> endobj"));
+
+        assertThat(count).isEqualTo(new PdfPageCounter.PageCount(3, true));
+    }
+
+    @Test
+    void countIsNotExactWhenSignalsDisagreeOrOneIsMissing() throws Exception {
+        PdfPageCounter.PageCount partlyCompressed = PdfPageCounter.countPages(pdf(
+                "1 0 obj << /Type /Pages /Count 5 >> endobj", "2 0 obj << /Type /Page >> endobj"));
+        PdfPageCounter.PageCount treeOnly = PdfPageCounter.countPages(pdf(
+                "1 0 obj << /Type /Pages /Count 4 >> endobj"));
+
+        assertThat(partlyCompressed).isEqualTo(new PdfPageCounter.PageCount(1, false));
+        assertThat(treeOnly).isEqualTo(new PdfPageCounter.PageCount(4, false));
+    }
+
+    @Test
+    void unreadableFileCountsAsUnknown() {
+        assertThat(PdfPageCounter.countPages(dir.resolve("missing.pdf")))
+                .isEqualTo(new PdfPageCounter.PageCount(0, false));
+    }
+
+    private Path pdf(String... objects) throws Exception {
+        Path file = Files.createTempFile(dir, "quote", ".pdf");
+        Files.writeString(file, "%PDF-1.4\n" + String.join("\n", objects) + "\n%%EOF\n", StandardCharsets.ISO_8859_1);
+        return file;
+    }
+}
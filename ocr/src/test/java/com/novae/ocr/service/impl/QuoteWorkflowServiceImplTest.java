@@ -0,0 +1,150 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.cache.ExtractionCache;
+import com.novae.ocr.cache.ResolutionCache;
+import com.novae.ocr.catalog.ProductCatalog;
+import com.novae.ocr.context.Priority;
+import com.novae.ocr.context.TenantKeys;
+import com.novae.ocr.pipeline.PipelineStages;
+import com.novae.ocr.resilience.CircuitBreakers;
+import com.novae.ocr.resilience.McpConcurrencyLimiters;
+import com.novae.ocr.resilience.McpSingleFlight;
+import com.novae.ocr.resilience.RetryPolicies;
+import com.novae.ocr.service.AzureOcrService;
+import com.novae.ocr.service.OcrTextCompactor;
+import com.novae.ocr.service.UploadSpoolService;
+import com.novae.ocr.service.ValidationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QuoteWorkflowServiceImplTest {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    @TempDir
+    Path dir;
+
+    private final AzureOcrService azureOcrService = mock(AzureOcrService.class);
+    private final ReentrantLock ocrCallsLock = new ReentrantLock();
+    private final List<String> ocrCalls = new ArrayList<>();
+    private final List<CompletableFuture<String>> ocrResults = new ArrayList<>();
+    private PipelineStages stages;
+    private QuoteWorkflowServiceImpl service;
+    private Path pdf;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pdf = Files.write(dir.resolve("quote.pdf"), new byte[] {'%', 'P', 'D', 'F'});
+        when(azureOcrService.extractTextAsync(any(), any(), any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            ocrCallsLock.lock();
+            try {
+                ocrCalls.add(invocation.getArgument(1));
+                ocrResults.add(result);
+            } finally {
+                ocrCallsLock.unlock();
+            }
+            return result;
+        });
+        // Stages off, the default: async jobs go through the async stage only. Two slots, either tenant may use both.
+        stages = new PipelineStages(false, 8, 64, 4, 16, 4, 16, 2, 16, 2, 1.0, "", 10_000, true);
+        service = service(stages);
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdownResolveExecutor();
+        stages.async().shutdown();
+    }
+
+    @Test
+    void otherTenantIsNotQueuedBehindABulkTenantsBacklog() throws Exception {
+        for (int i = 1; i <= 12; i++) {
+            service.processPdfFileAsync(pdf, "bulk-" + i, "Bearer bulk-tenant", Priority.ASYNC);
+        }
+        service.processPdfFileAsync(pdf, "other", "Bearer other-tenant", Priority.ASYNC);
+        awaitOcrCalls(2);
+
+        ocrResult(0).completeExceptionally(new IllegalStateException("Azure 500"));
+        awaitOcrCalls(3);
+        ocrResult(1).completeExceptionally(new IllegalStateException("Azure 500"));
+        awaitOcrCalls(4);
+
+        // In arrival order the other tenant would start 13th; taking turns it starts with the next free slot.
+        // The first two jobs start on their own threads, so they may reach OCR in either order.
+        assertThat(ocrCalls().subList(0, 2)).containsExactlyInAnyOrder("bulk-1", "bulk-2");
+        assertThat(ocrCalls().subList(2, 4)).containsExactly("bulk-3", "other");
+    }
+
+    @Test
+    void asyncJobStartsAheadOfQueuedBulkJobs() throws Exception {
+        for (int i = 1; i <= 12; i++) {
+            service.processPdfFileAsync(pdf, "bulk-" + i, "Bearer dealer", Priority.BULK);
+        }
+        service.processPdfFileAsync(pdf, "async", "Bearer dealer", Priority.ASYNC);
+        awaitOcrCalls(2);
+
+        ocrResult(0).completeExceptionally(new IllegalStateException("Azure 500"));
+        awaitOcrCalls(3);
+
+        assertThat(ocrCalls().subList(0, 2)).containsExactlyInAnyOrder("bulk-1", "bulk-2");
+        assertThat(ocrCalls().get(2)).isEqualTo("async");
+    }
+
+    private QuoteWorkflowServiceImpl service(PipelineStages stages) {
+        return new QuoteWorkflowServiceImpl(azureOcrService, mock(ValidationService.class),
+                mock(UploadSpoolService.class), mock(OcrTextCompactor.class), mock(RestClient.class),
+                mock(ExtractionCache.class), mock(ResolutionCache.class), mock(ProductCatalog.class), stages,
+                new TenantKeys(JSON, "", "", "sub"), mock(McpConcurrencyLimiters.class), mock(CircuitBreakers.class),
+                mock(RetryPolicies.class), mock(McpSingleFlight.class), JSON, 8, 2, "single", false, 25, false, 0.95,
+                2000, 0.1, "sequential", 2, 4, 0, true);
+    }
+
+    private CompletableFuture<String> ocrResult(int index) {
+        ocrCallsLock.lock();
+        try {
+            return ocrResults.get(index);
+        } finally {
+            ocrCallsLock.unlock();
+        }
+    }
+
+    private List<String> ocrCalls() {
+        ocrCallsLock.lock();
+        try {
+            return new ArrayList<>(ocrCalls);
+        } finally {
+            ocrCallsLock.unlock();
+        }
+    }
+
+    private void awaitOcrCalls(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ocrCalls().size() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("expected " + count + " OCR calls but got " + ocrCalls());
+            }
+            Thread.sleep(1);
+        }
+        // No further job may have started yet.
+        Thread.sleep(20);
+        assertThat(ocrCalls()).hasSize(count);
+    }
+}
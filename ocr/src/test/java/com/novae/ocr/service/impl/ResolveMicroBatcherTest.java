@@ -0,0 +1,74 @@
+package com.novae.ocr.service.impl;
+
+import com.novae.ocr.dto.ExtractedLine;
+import com.novae.ocr.dto.ExtractedQuote;
+import com.novae.ocr.dto.ResolutionResult;
+import com.novae.ocr.dto.ResolvedLine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ResolveMicroBatcherTest {
+
+    @Test
+    void sliceTakesTheCallersLinesAndRemapsTheirFindings() {
+        ResolutionResult merged = merged(0.9, 0.9, 0.6, 0.8, 1.0);
+        merged.setResolvedVendorId("V-1");
+        merged.setOverallConfidence(0.5);
+        merged.setWarnings(List.of("lines[0].sku ambiguous", "lines[3].sku ambiguous", "total does not match lines"));
+        merged.setMissingFields(List.of("poNumber", "lines[4].unitPrice", "lines[1].qty"));
+
+        ResolutionResult slice = ResolveMicroBatcher.slice(merged, quote(3), 2);
+
+        assertThat(slice.getLines()).extracting(ResolvedLine::getSku).containsExactly("SKU-2", "SKU-3", "SKU-4");
+        assertThat(slice.getLines().get(0)).isNotSameAs(merged.getLines().get(2));
+        assertThat(slice.getResolvedVendorId()).isEqualTo("V-1");
+        assertThat(slice.getOverallConfidence()).isCloseTo(0.8, within(1e-9));
+        assertThat(slice.getWarnings()).containsExactly("lines[1].sku ambiguous");
+        assertThat(slice.getMissingFields()).containsExactly("lines[2].unitPrice");
+    }
+
+    @Test
+    void linesMissingFromTheMergedResultBecomeUnresolvedPlaceholders() {
+        ResolutionResult merged = merged(0.0, 0.0);
+        merged.setOverallConfidence(0.4);
+        ExtractedQuote quote = quote(3);
+        quote.getLines().get(2).setColor("white");
+
+        ResolutionResult slice = ResolveMicroBatcher.slice(merged, quote, 0);
+
+        assertThat(slice.getLines()).hasSize(3);
+        assertThat(slice.getLines().get(2).getSku()).isNull();
+        assertThat(slice.getLines().get(2).getNormalizedColor()).isEqualTo("white");
+        assertThat(slice.getOverallConfidence()).isEqualTo(0.4);
+    }
+
+    private static ResolutionResult merged(double... confidences) {
+        List<ResolvedLine> lines = new ArrayList<>();
+        for (int i = 0; i < confidences.length; i++) {
+            ResolvedLine line = new ResolvedLine();
+            line.setSku("SKU-" + i);
+            line.setConfidence(confidences[i]);
+            lines.add(line);
+        }
+        ResolutionResult result = new ResolutionResult();
+        result.setLines(lines);
+        return result;
+    }
+
+    private static ExtractedQuote quote(int lineCount) {
+        List<ExtractedLine> lines = new ArrayList<>();
+        for (int i = 0; i < lineCount; i++) {
+            ExtractedLine line = new ExtractedLine();
+            line.setModel("M-" + i);
+            lines.add(line);
+        }
+        ExtractedQuote quote = new ExtractedQuote();
+        quote.setLines(lines);
+        return quote;
+    }
+}
@@ -0,0 +1,101 @@
+package com.novae.ocr.util;
+
+import com.novae.ocr.cache.LruTtlCache;
+import com.novae.ocr.resilience.AdaptiveConcurrencyLimiter;
+import com.novae.ocr.resilience.SingleFlight;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Records {@code jdk.VirtualThreadPinned} JFR events while virtual-thread workers block inside the module's locking
+ * code (limiter, single-flight, cache), with the threshold at zero so every pinned park is reported.
+ */
+class BlockingExecutorsPinningTest {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    @Test
+    void virtualWorkersBlockingInLimiterSingleFlightAndCacheDoNotPin() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("pinning-test", 2, 1, 2, 10_000, 0);
+        SingleFlight<String, String> flight = new SingleFlight<>("pinning-test", UnaryOperator.identity());
+        LruTtlCache<String, String> cache = new LruTtlCache<>(4, 0, 1, TimeUnit.MINUTES, null);
+        ExecutorService executor = BlockingExecutors.bounded("pinning-test", 4, true);
+
+        List<RecordedEvent> pinned = recordPinning(() -> {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                String key = "key-" + (i % 4);
+                futures.add(executor.submit(() -> {
+                    try (AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire()) {
+                        cache.put(key, flight.execute(key, () -> {
+                            sleep(5);
+                            return key;
+                        }));
+                        cache.get(key);
+                        permit.onSuccess();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        });
+        executor.shutdown();
+
+        assertThat(pinned).isEmpty();
+    }
+
+    /**
+     * Guards the check above: parking inside a monitor must show up, otherwise an empty result proves nothing.
+     */
+    @Test
+    void parkingInsideMonitorIsReported() throws Exception {
+        Object monitor = new Object();
+
+        List<RecordedEvent> pinned = recordPinning(() -> Thread.ofVirtual().start(() -> {
+            synchronized (monitor) {
+                sleep(20);
+            }
+        }).join());
+
+        assertThat(pinned).isNotEmpty();
+    }
+
+    private static List<RecordedEvent> recordPinning(Workload workload) throws Exception {
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+        try (RecordingStream stream = new RecordingStream()) {
+            stream.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            stream.onEvent(PINNED_EVENT, events::add);
+            stream.startAsync();
+            workload.run();
+            // Returns once every recorded event has been delivered to onEvent.
+            stream.stop();
+        }
+        return events;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Workload {
+        void run() throws Exception;
+    }
+}